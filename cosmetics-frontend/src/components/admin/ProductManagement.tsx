@@ -38,7 +38,7 @@ import {
   FilterList,
   Refresh
 } from '@mui/icons-material';
-import { apiService } from '../../services/api';
+import { apiService, imageVariantUrl } from '../../services/api';
 import { Product, Category, ProductRequest, PaginatedResponse } from '../../types/api';
 import { ImageUpload } from './ImageUpload';
 
@@ -295,7 +295,7 @@ export function ProductManagement() {
               <TableRow key={product.id} hover>
                 <TableCell>
                   <Avatar
-                    src={product.imageUrl}
+                    src={imageVariantUrl(product.imageUrl, 'thumb')}
                     alt={product.name}
                     sx={{ width: 50, height: 50 }}
                     variant="rounded"
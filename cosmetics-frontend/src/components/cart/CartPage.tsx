@@ -14,6 +14,7 @@ import {
 } from '@mui/material';
 import { Add, Remove, Delete, ShoppingCartCheckout } from '@mui/icons-material';
 import { useCart } from '../../context/CartContext';
+import { imageVariantUrl } from '../../services/api';
 import { useAuth } from '../../context/AuthContext';
 import { useNavigate } from 'react-router-dom';
 
@@ -100,7 +101,7 @@ export function CartPage() {
                 }}>
                   <Box sx={{ flexShrink: 0, width: { xs: '100%', sm: 120 } }}>
                     <img
-                      src={item.imageUrl || 'https://via.placeholder.com/150x150?text=No+Image'}
+                      src={imageVariantUrl(item.imageUrl, 'thumb') || 'https://via.placeholder.com/150x150?text=No+Image'}
                       alt={item.productName}
                       style={{
                         width: '100%',
@@ -12,6 +12,7 @@ import {
 } from '@mui/material';
 import { Add, Remove, ShoppingCart } from '@mui/icons-material';
 import { Product } from '../../types/api';
+import { imageVariantUrl } from '../../services/api';
 import { useCart } from '../../context/CartContext';
 import { useAuth } from '../../context/AuthContext';
 import { useNavigate } from 'react-router-dom';
@@ -61,7 +62,7 @@ export function ProductCard({ product }: ProductCardProps) {
       <CardMedia
         component="img"
         height="240"
-        image={product.imageUrl || 'https://via.placeholder.com/300x240?text=No+Image'}
+        image={imageVariantUrl(product.imageUrl, 'card') || 'https://via.placeholder.com/300x240?text=No+Image'}
         alt={product.name}
         sx={{ 
           objectFit: 'cover',
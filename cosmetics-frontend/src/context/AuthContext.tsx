@@ -51,6 +51,7 @@ export function AuthProvider({ children }: AuthProviderProps) {
       setUser(response.user);
       
       localStorage.setItem('token', response.token);
+      localStorage.setItem('refreshToken', response.refreshToken);
       localStorage.setItem('user', JSON.stringify(response.user));
     } catch (error) {
       console.error('Login failed:', error);
@@ -66,6 +67,7 @@ export function AuthProvider({ children }: AuthProviderProps) {
       setUser(response.user);
       
       localStorage.setItem('token', response.token);
+      localStorage.setItem('refreshToken', response.refreshToken);
       localStorage.setItem('user', JSON.stringify(response.user));
     } catch (error) {
       console.error('Registration failed:', error);
@@ -74,10 +76,14 @@ export function AuthProvider({ children }: AuthProviderProps) {
   };
 
   const logout = (): void => {
+    // Revoke server-side too; the local session is cleared regardless of the outcome
+    apiService.logout().catch((error) => console.error('Logout request failed:', error));
+
     setUser(null);
     setToken(null);
     
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
     localStorage.removeItem('user');
   };
 
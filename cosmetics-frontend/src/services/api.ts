@@ -1,4 +1,4 @@
-import axios, { AxiosInstance, AxiosResponse } from 'axios';
+import axios, { AxiosInstance, AxiosResponse, InternalAxiosRequestConfig } from 'axios';
 import {
   AuthResponse,
   LoginRequest,
@@ -23,6 +23,8 @@ const BASE_URL = 'http://localhost:8080';
 
 class ApiService {
   private axios: AxiosInstance;
+  // Shared by every request that fails while a refresh is already under way
+  private refreshing: Promise<string> | null = null;
 
   constructor() {
     this.axios = axios.create({
@@ -44,12 +46,26 @@ class ApiService {
       (error) => Promise.reject(error)
     );
 
-    // Response interceptor for error handling
+    // Response interceptor for error handling: access tokens are short-lived, so a 401
+    // is first answered by exchanging the refresh token and retrying once
     this.axios.interceptors.response.use(
       (response) => response,
-      (error) => {
+      async (error) => {
+        const request = error.config as (InternalAxiosRequestConfig & { _retried?: boolean }) | undefined;
+        if (error.response?.status === 401 && request && !request._retried
+            && !request.url?.startsWith('/api/auth/') && localStorage.getItem('refreshToken')) {
+          request._retried = true;
+          try {
+            const token = await this.refreshAccessToken();
+            request.headers.Authorization = `Bearer ${token}`;
+            return this.axios(request);
+          } catch (refreshError) {
+            // Fall through to the logout below
+          }
+        }
         if (error.response?.status === 401) {
           localStorage.removeItem('token');
+          localStorage.removeItem('refreshToken');
           localStorage.removeItem('user');
           window.location.href = '/login';
         }
@@ -58,12 +74,39 @@ class ApiService {
     );
   }
 
+  private refreshAccessToken(): Promise<string> {
+    if (!this.refreshing) {
+      const refreshToken = localStorage.getItem('refreshToken');
+      this.refreshing = this.axios
+        .post<AuthResponse>('/api/auth/refresh', { refreshToken })
+        .then((response) => {
+          localStorage.setItem('token', response.data.token);
+          localStorage.setItem('refreshToken', response.data.refreshToken);
+          localStorage.setItem('user', JSON.stringify(response.data.user));
+          return response.data.token;
+        })
+        .finally(() => {
+          this.refreshing = null;
+        });
+    }
+    return this.refreshing;
+  }
+
   // Authentication APIs
   async login(credentials: LoginRequest): Promise<AuthResponse> {
     const response = await this.axios.post<AuthResponse>('/api/auth/login', credentials);
     return response.data;
   }
 
+  async logout(): Promise<void> {
+    // Read both tokens now, the caller clears local storage right after calling this
+    const token = localStorage.getItem('token');
+    const refreshToken = localStorage.getItem('refreshToken');
+    await this.axios.post('/api/auth/logout', refreshToken ? { refreshToken } : undefined, {
+      headers: token ? { Authorization: `Bearer ${token}` } : {},
+    });
+  }
+
   async register(userData: RegisterRequest): Promise<AuthResponse> {
     const response = await this.axios.post<AuthResponse>('/api/auth/register', userData);
     return response.data;
@@ -249,4 +292,14 @@ class ApiService {
   }
 }
 
-export const apiService = new ApiService();
\ No newline at end of file
+export const apiService = new ApiService();
+
+// Uploaded product images are served in fixed display sizes; other URLs are left as-is
+export type ImageVariant = 'thumb' | 'card' | 'detail';
+
+export const imageVariantUrl = (url: string | undefined, variant: ImageVariant): string | undefined => {
+  if (!url || !url.includes('/api/files/') || url.includes('?')) {
+    return url;
+  }
+  return `${url}?variant=${variant}`;
+};
\ No newline at end of file
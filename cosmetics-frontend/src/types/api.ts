@@ -12,6 +12,7 @@ export interface User {
 export interface AuthResponse {
   token: string;
   tokenType: string;
+  refreshToken: string;
   user: User;
 }
 
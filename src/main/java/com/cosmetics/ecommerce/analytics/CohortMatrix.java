@@ -0,0 +1,115 @@
+package com.cosmetics.ecommerce.analytics;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Monthly cohort retention counts. Customers are laid out in compressed rows: customer
+ * {@code i} belongs to cohort {@code cohortOf[i]} and was active in the month offsets
+ * {@code offsets[offsetStart[i]] .. offsets[offsetStart[i + 1] - 1]} relative to that cohort.
+ */
+public class CohortMatrix {
+
+    private static final int LEAF_CUSTOMERS = 4096;
+
+    private final int firstMonth;
+    private final long[][] activeCustomers;
+
+    private CohortMatrix(int firstMonth, long[][] activeCustomers) {
+        this.firstMonth = firstMonth;
+        this.activeCustomers = activeCustomers;
+    }
+
+    /**
+     * @param firstMonth  month ordinal ({@code year * 12 + month - 1}) of cohort index 0
+     * @param cohortCount number of cohorts, i.e. distinct months from firstMonth onwards
+     * @param maxOffset   largest month offset present in {@code offsets}
+     */
+    public static CohortMatrix compute(int[] cohortOf, int[] offsetStart, int[] offsets, int customers,
+                                       int firstMonth, int cohortCount, int maxOffset, ForkJoinPool pool) {
+        long[][] counts = pool.invoke(new CountTask(cohortOf, offsetStart, offsets, 0, customers,
+                cohortCount, maxOffset + 1));
+        return new CohortMatrix(firstMonth, counts);
+    }
+
+    public int getFirstMonth() {
+        return firstMonth;
+    }
+
+    public int getCohortCount() {
+        return activeCustomers.length;
+    }
+
+    public int getOffsetCount(int cohort) {
+        return activeCustomers[cohort].length;
+    }
+
+    // Every customer orders in their first month, so offset 0 is the cohort size
+    public long getCohortSize(int cohort) {
+        return activeCustomers[cohort][0];
+    }
+
+    public long getActiveCustomers(int cohort, int monthOffset) {
+        return activeCustomers[cohort][monthOffset];
+    }
+
+    private static final class CountTask extends RecursiveTask<long[][]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] cohortOf;
+        private final int[] offsetStart;
+        private final int[] offsets;
+        private final int from;
+        private final int to;
+        private final int cohortCount;
+        private final int offsetCount;
+
+        CountTask(int[] cohortOf, int[] offsetStart, int[] offsets, int from, int to,
+                  int cohortCount, int offsetCount) {
+            this.cohortOf = cohortOf;
+            this.offsetStart = offsetStart;
+            this.offsets = offsets;
+            this.from = from;
+            this.to = to;
+            this.cohortCount = cohortCount;
+            this.offsetCount = offsetCount;
+        }
+
+        @Override
+        protected long[][] compute() {
+            if (to - from <= LEAF_CUSTOMERS) {
+                return countLeaf();
+            }
+            int middle = (from + to) >>> 1;
+            CountTask left = new CountTask(cohortOf, offsetStart, offsets, from, middle, cohortCount, offsetCount);
+            CountTask right = new CountTask(cohortOf, offsetStart, offsets, middle, to, cohortCount, offsetCount);
+            left.fork();
+            long[][] rightCounts = right.compute();
+            long[][] leftCounts = left.join();
+            for (int cohort = 0; cohort < cohortCount; cohort++) {
+                long[] target = leftCounts[cohort];
+                long[] source = rightCounts[cohort];
+                for (int offset = 0; offset < target.length; offset++) {
+                    target[offset] += source[offset];
+                }
+            }
+            return leftCounts;
+        }
+
+        private long[][] countLeaf() {
+            long[][] counts = new long[cohortCount][];
+            for (int cohort = 0; cohort < cohortCount; cohort++) {
+                // A cohort can only be observed for as many months as remain after it starts
+                counts[cohort] = new long[Math.min(offsetCount, cohortCount - cohort)];
+            }
+            for (int customer = from; customer < to; customer++) {
+                long[] row = counts[cohortOf[customer]];
+                for (int k = offsetStart[customer]; k < offsetStart[customer + 1]; k++) {
+                    row[offsets[k]]++;
+                }
+            }
+            return counts;
+        }
+    }
+}
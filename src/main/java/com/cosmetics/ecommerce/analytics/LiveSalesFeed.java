@@ -0,0 +1,193 @@
+package com.cosmetics.ecommerce.analytics;
+
+import com.cosmetics.ecommerce.dto.SalesDeltaDto;
+import com.cosmetics.ecommerce.event.OrderPlacedEvent;
+import com.cosmetics.ecommerce.event.OrderStatusChangedEvent;
+import com.cosmetics.ecommerce.model.Order;
+import com.cosmetics.ecommerce.repository.OrderItemRepository;
+import com.cosmetics.ecommerce.repository.OrderRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps running sales counters fed by order events and pushes coalesced deltas to
+ * every subscribed dashboard on a fixed tick, so the database is never queried
+ * on behalf of a live dashboard. The counters are seeded from the orders table once,
+ * before the web server accepts requests, so they cover orders from earlier runs too.
+ */
+@Component
+public class LiveSalesFeed implements SmartInitializingSingleton {
+
+    private static final Order.OrderStatus[] STATUSES = Order.OrderStatus.values();
+    private static final long KEEPALIVE_NANOS = TimeUnit.SECONDS.toNanos(15);
+
+    // Counter slots: orders, revenue in cents, units, then one slot per order status
+    private static final int ORDERS = 0;
+    private static final int REVENUE = 1;
+    private static final int UNITS = 2;
+    private static final int FIRST_STATUS = 3;
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ObjectMapper objectMapper;
+    private final long emitterTimeoutMillis;
+
+    private final LongAdder[] counters = new LongAdder[FIRST_STATUS + STATUSES.length];
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+
+    // Guards lastTick and subscriber registration, so a new subscriber's snapshot and the deltas it
+    // receives afterwards line up; a lock rather than a monitor so virtual threads do not pin a carrier
+    private final ReentrantLock tickLock = new ReentrantLock();
+    private long[] lastTick;
+    private long lastSendNanos = System.nanoTime();
+
+    public LiveSalesFeed(OrderRepository orderRepository, OrderItemRepository orderItemRepository,
+                         ObjectMapper objectMapper,
+                         @Value("${analytics.stream.emitter-timeout-ms}") long emitterTimeoutMillis) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.objectMapper = objectMapper;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        this.lastTick = new long[counters.length];
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        // Runs before the connectors start and before any order event can be published
+        for (Object[] row : orderRepository.summarizeByStatus()) {
+            Order.OrderStatus status = (Order.OrderStatus) row[0];
+            long orders = ((Number) row[1]).longValue();
+            counters[FIRST_STATUS + status.ordinal()].add(orders);
+            counters[ORDERS].add(orders);
+            counters[REVENUE].add(OrderLineStore.toCents((BigDecimal) row[2]));
+        }
+        counters[UNITS].add(orderItemRepository.sumQuantities());
+        long[] seeded = new long[counters.length];
+        for (int i = 0; i < counters.length; i++) {
+            seeded[i] = counters[i].sum();
+        }
+        lastTick = seeded;
+    }
+
+    @TransactionalEventListener
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        counters[ORDERS].increment();
+        counters[REVENUE].add(OrderLineStore.toCents(event.getTotalAmount()));
+        for (OrderPlacedEvent.Line line : event.getLines()) {
+            counters[UNITS].add(line.getQuantity());
+        }
+        counters[FIRST_STATUS + Order.OrderStatus.PENDING.ordinal()].increment();
+    }
+
+    @TransactionalEventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        counters[FIRST_STATUS + event.getPreviousStatus().ordinal()].decrement();
+        counters[FIRST_STATUS + event.getNewStatus().ordinal()].increment();
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribers.remove(emitter));
+
+        // Totals as of the last tick, sent before the emitter can receive any delta, so the next
+        // delta applies exactly on top of them
+        tickLock.lock();
+        try {
+            send(emitter, SseEmitter.event().name("snapshot").data(toJson(lastTick), MediaType.APPLICATION_JSON));
+            subscribers.add(emitter);
+        } finally {
+            tickLock.unlock();
+        }
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.stream.interval-ms}")
+    public void broadcast() {
+        long[] current = new long[counters.length];
+        long[] delta = new long[counters.length];
+        boolean changed = false;
+        List<SseEmitter> recipients;
+        tickLock.lock();
+        try {
+            for (int i = 0; i < counters.length; i++) {
+                current[i] = counters[i].sum();
+                delta[i] = current[i] - lastTick[i];
+                changed |= delta[i] != 0;
+            }
+            lastTick = current;
+            // Subscribers registered from here on got a snapshot that already includes this delta
+            recipients = List.copyOf(subscribers);
+        } finally {
+            tickLock.unlock();
+        }
+
+        if (recipients.isEmpty()) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (changed) {
+            // Serialized once and shared by every subscriber
+            String payload = toJson(delta);
+            for (SseEmitter emitter : recipients) {
+                send(emitter, SseEmitter.event().name("delta").data(payload, MediaType.APPLICATION_JSON));
+            }
+            lastSendNanos = now;
+        } else if (now - lastSendNanos >= KEEPALIVE_NANOS) {
+            for (SseEmitter emitter : recipients) {
+                send(emitter, SseEmitter.event().comment("keepalive"));
+            }
+            lastSendNanos = now;
+        }
+    }
+
+    private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private String toJson(long[] values) {
+        Map<String, Long> statusCounts = new LinkedHashMap<>();
+        for (Order.OrderStatus status : STATUSES) {
+            statusCounts.put(status.name(), values[FIRST_STATUS + status.ordinal()]);
+        }
+        SalesDeltaDto dto = new SalesDeltaDto(LocalDateTime.now(), values[ORDERS],
+                BigDecimal.valueOf(values[REVENUE], 2), values[UNITS], statusCounts);
+        try {
+            return objectMapper.writeValueAsString(dto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize sales delta", e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.cosmetics.ecommerce.analytics;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class OrderLineQuery {
+
+    // Inclusive epoch-day bounds; null means unbounded
+    private Integer fromDay;
+    private Integer toDay;
+
+    private Long categoryId;
+    private Long productId;
+
+    // Inclusive unit price bounds in cents; null means unbounded
+    private Long minUnitPriceCents;
+    private Long maxUnitPriceCents;
+
+    private List<Dimension> groupBy = new ArrayList<>();
+
+    private int limit = 100;
+
+    public enum Dimension {
+        PRODUCT,
+        CATEGORY,
+        WEEKDAY,
+        DAY,
+        MONTH
+    }
+}
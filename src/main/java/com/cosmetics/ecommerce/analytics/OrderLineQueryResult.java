@@ -0,0 +1,30 @@
+package com.cosmetics.ecommerce.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLineQueryResult {
+
+    private long rowsScanned;
+    private long rowsMatched;
+    private List<Group> groups = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Group {
+        // One value per grouping dimension, in query order:
+        // PRODUCT/CATEGORY -> id, WEEKDAY -> ISO day (1 = Monday), DAY -> epoch day, MONTH -> year * 12 + (month - 1)
+        private long[] keys;
+        private long orderLines;
+        private long unitsSold;
+        private long revenueCents;
+    }
+}
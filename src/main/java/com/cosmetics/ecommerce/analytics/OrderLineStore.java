@@ -0,0 +1,357 @@
+package com.cosmetics.ecommerce.analytics;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/**
+ * Append-only, column-oriented copy of every order line kept in primitive arrays.
+ * Rows are stored in fixed-size chunks so appends never copy existing data and
+ * queries can scan a consistent prefix without locking.
+ */
+@Component
+public class OrderLineStore {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // Above this many group cells the accumulators switch from dense arrays to a hash map
+    private static final int MAX_DENSE_GROUPS = 1 << 16;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    // Written under appendLock; size is published last so readers see complete rows
+    private volatile Chunk[] chunks = new Chunk[0];
+    private volatile int size;
+    private int maxProductId;
+    private int maxCategoryId;
+    private int minDay = Integer.MAX_VALUE;
+    private int maxDay = Integer.MIN_VALUE;
+
+    public void append(long productId, long categoryId, LocalDate orderDate, int quantity,
+                       BigDecimal unitPrice, BigDecimal subtotal) {
+        int product = Math.toIntExact(productId);
+        int category = Math.toIntExact(categoryId);
+        int day = Math.toIntExact(orderDate.toEpochDay());
+
+        appendLock.lock();
+        try {
+            int row = size;
+            int chunkIndex = row >>> CHUNK_BITS;
+            Chunk[] current = chunks;
+            if (chunkIndex == current.length) {
+                current = Arrays.copyOf(current, current.length + 1);
+                current[chunkIndex] = new Chunk();
+                chunks = current;
+            }
+
+            Chunk chunk = current[chunkIndex];
+            int offset = row & CHUNK_MASK;
+            chunk.productId[offset] = product;
+            chunk.categoryId[offset] = category;
+            chunk.epochDay[offset] = day;
+            chunk.quantity[offset] = quantity;
+            chunk.unitPriceCents[offset] = toCents(unitPrice);
+            chunk.subtotalCents[offset] = toCents(subtotal);
+
+            maxProductId = Math.max(maxProductId, product);
+            maxCategoryId = Math.max(maxCategoryId, category);
+            minDay = Math.min(minDay, day);
+            maxDay = Math.max(maxDay, day);
+
+            size = row + 1;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public OrderLineQueryResult query(OrderLineQuery query) {
+        // Reading size first guarantees the chunk array and bounds below cover every visible row
+        int rows = size;
+        Chunk[] snapshot = chunks;
+        if (rows == 0) {
+            return new OrderLineQueryResult(0, 0, new ArrayList<>());
+        }
+
+        int fromDay = query.getFromDay() != null ? Math.max(query.getFromDay(), minDay) : minDay;
+        int toDay = query.getToDay() != null ? Math.min(query.getToDay(), maxDay) : maxDay;
+        if (fromDay > toDay) {
+            return new OrderLineQueryResult(rows, 0, new ArrayList<>());
+        }
+
+        Filter filter = new Filter(fromDay, toDay, query);
+        Grouping grouping = new Grouping(query.getGroupBy(), maxProductId, maxCategoryId, fromDay, toDay);
+
+        int chunkCount = (rows + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        int slices = Math.max(1, Math.min(chunkCount, ForkJoinPool.getCommonPoolParallelism()));
+
+        Accumulator total = IntStream.range(0, slices).parallel()
+                .mapToObj(slice -> {
+                    Accumulator accumulator = new Accumulator(grouping);
+                    int[] selection = new int[CHUNK_SIZE];
+                    int firstChunk = (int) ((long) slice * chunkCount / slices);
+                    int lastChunk = (int) ((long) (slice + 1) * chunkCount / slices);
+                    for (int c = firstChunk; c < lastChunk; c++) {
+                        int length = Math.min(CHUNK_SIZE, rows - (c << CHUNK_BITS));
+                        scanChunk(snapshot[c], length, filter, grouping, accumulator, selection);
+                    }
+                    return accumulator;
+                })
+                .reduce(Accumulator::merge)
+                .orElseThrow();
+
+        return new OrderLineQueryResult(rows, total.matched, total.topGroups(grouping, query.getLimit()));
+    }
+
+    private static void scanChunk(Chunk chunk, int length, Filter filter, Grouping grouping,
+                                  Accumulator accumulator, int[] selection) {
+        int[] epochDay = chunk.epochDay;
+        int[] productId = chunk.productId;
+        int[] categoryId = chunk.categoryId;
+        long[] unitPrice = chunk.unitPriceCents;
+
+        // Branch-free predicate pass producing a selection vector
+        int selected = 0;
+        for (int i = 0; i < length; i++) {
+            int day = epochDay[i];
+            long price = unitPrice[i];
+            boolean match = day >= filter.fromDay & day <= filter.toDay
+                    & price >= filter.minPrice & price <= filter.maxPrice
+                    & (filter.categoryId < 0 | categoryId[i] == filter.categoryId)
+                    & (filter.productId < 0 | productId[i] == filter.productId);
+            selection[selected] = i;
+            selected += match ? 1 : 0;
+        }
+
+        int[] quantity = chunk.quantity;
+        long[] subtotal = chunk.subtotalCents;
+        if (grouping.dimensions.length == 0) {
+            long units = 0;
+            long revenue = 0;
+            for (int k = 0; k < selected; k++) {
+                int i = selection[k];
+                units += quantity[i];
+                revenue += subtotal[i];
+            }
+            accumulator.add(0, selected, units, revenue);
+        } else {
+            for (int k = 0; k < selected; k++) {
+                int i = selection[k];
+                accumulator.add(grouping.keyOf(chunk, i), 1, quantity[i], subtotal[i]);
+            }
+        }
+        accumulator.matched += selected;
+    }
+
+    public static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static final class Chunk {
+        final int[] productId = new int[CHUNK_SIZE];
+        final int[] categoryId = new int[CHUNK_SIZE];
+        final int[] epochDay = new int[CHUNK_SIZE];
+        final int[] quantity = new int[CHUNK_SIZE];
+        final long[] unitPriceCents = new long[CHUNK_SIZE];
+        final long[] subtotalCents = new long[CHUNK_SIZE];
+    }
+
+    private static final class Filter {
+        final int fromDay;
+        final int toDay;
+        final long minPrice;
+        final long maxPrice;
+        final int categoryId;
+        final int productId;
+
+        Filter(int fromDay, int toDay, OrderLineQuery query) {
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.minPrice = query.getMinUnitPriceCents() != null ? query.getMinUnitPriceCents() : Long.MIN_VALUE;
+            this.maxPrice = query.getMaxUnitPriceCents() != null ? query.getMaxUnitPriceCents() : Long.MAX_VALUE;
+            this.categoryId = query.getCategoryId() != null ? Math.toIntExact(query.getCategoryId()) : -1;
+            this.productId = query.getProductId() != null ? Math.toIntExact(query.getProductId()) : -1;
+        }
+    }
+
+    private static final class Grouping {
+        final OrderLineQuery.Dimension[] dimensions;
+        final long[] cardinality;
+        final long cells;
+        final int fromDay;
+        final int firstMonth;
+        final int[] monthOfDay;
+
+        Grouping(List<OrderLineQuery.Dimension> groupBy, int maxProductId, int maxCategoryId, int fromDay, int toDay) {
+            this.dimensions = groupBy.toArray(new OrderLineQuery.Dimension[0]);
+            this.cardinality = new long[dimensions.length];
+            this.fromDay = fromDay;
+
+            LocalDate first = LocalDate.ofEpochDay(fromDay);
+            this.firstMonth = first.getYear() * 12 + first.getMonthValue() - 1;
+            this.monthOfDay = groupBy.contains(OrderLineQuery.Dimension.MONTH)
+                    ? buildMonthIndex(first, toDay - fromDay + 1)
+                    : null;
+
+            long total = 1;
+            for (int d = 0; d < dimensions.length; d++) {
+                cardinality[d] = switch (dimensions[d]) {
+                    case PRODUCT -> maxProductId + 1L;
+                    case CATEGORY -> maxCategoryId + 1L;
+                    case WEEKDAY -> 7;
+                    case DAY -> toDay - fromDay + 1L;
+                    case MONTH -> monthOfDay[monthOfDay.length - 1] + 1L;
+                };
+                total = Math.multiplyExact(total, cardinality[d]);
+            }
+            this.cells = total;
+        }
+
+        private int[] buildMonthIndex(LocalDate first, int days) {
+            int[] index = new int[days];
+            LocalDate date = first;
+            for (int i = 0; i < days; i++) {
+                index[i] = date.getYear() * 12 + date.getMonthValue() - 1 - firstMonth;
+                date = date.plusDays(1);
+            }
+            return index;
+        }
+
+        boolean dense() {
+            return cells <= MAX_DENSE_GROUPS;
+        }
+
+        long keyOf(Chunk chunk, int row) {
+            long key = 0;
+            for (int d = 0; d < dimensions.length; d++) {
+                long value = switch (dimensions[d]) {
+                    case PRODUCT -> chunk.productId[row];
+                    case CATEGORY -> chunk.categoryId[row];
+                    // Epoch day 0 was a Thursday; shift so that Monday maps to 0
+                    case WEEKDAY -> Math.floorMod(chunk.epochDay[row] + 3, 7);
+                    case DAY -> chunk.epochDay[row] - fromDay;
+                    case MONTH -> monthOfDay[chunk.epochDay[row] - fromDay];
+                };
+                key = key * cardinality[d] + value;
+            }
+            return key;
+        }
+
+        long[] decode(long key) {
+            long[] values = new long[dimensions.length];
+            for (int d = dimensions.length - 1; d >= 0; d--) {
+                long value = key % cardinality[d];
+                key /= cardinality[d];
+                values[d] = switch (dimensions[d]) {
+                    case PRODUCT, CATEGORY -> value;
+                    case WEEKDAY -> value + 1;
+                    case DAY -> fromDay + value;
+                    case MONTH -> firstMonth + value;
+                };
+            }
+            return values;
+        }
+    }
+
+    private static final class Accumulator {
+        final long[] lines;
+        final long[] units;
+        final long[] revenue;
+        final Map<Long, long[]> sparse;
+        long matched;
+
+        Accumulator(Grouping grouping) {
+            if (grouping.dense()) {
+                int cells = (int) grouping.cells;
+                this.lines = new long[cells];
+                this.units = new long[cells];
+                this.revenue = new long[cells];
+                this.sparse = null;
+            } else {
+                this.lines = null;
+                this.units = null;
+                this.revenue = null;
+                this.sparse = new HashMap<>();
+            }
+        }
+
+        void add(long key, long lineCount, long unitCount, long revenueCents) {
+            if (lines != null) {
+                int cell = (int) key;
+                lines[cell] += lineCount;
+                units[cell] += unitCount;
+                revenue[cell] += revenueCents;
+            } else {
+                long[] totals = sparse.computeIfAbsent(key, k -> new long[3]);
+                totals[0] += lineCount;
+                totals[1] += unitCount;
+                totals[2] += revenueCents;
+            }
+        }
+
+        Accumulator merge(Accumulator other) {
+            if (lines != null) {
+                for (int cell = 0; cell < lines.length; cell++) {
+                    lines[cell] += other.lines[cell];
+                    units[cell] += other.units[cell];
+                    revenue[cell] += other.revenue[cell];
+                }
+            } else {
+                other.sparse.forEach((key, totals) -> add(key, totals[0], totals[1], totals[2]));
+            }
+            matched += other.matched;
+            return this;
+        }
+
+        List<OrderLineQueryResult.Group> topGroups(Grouping grouping, int limit) {
+            // Bounded min-heap keeps only the best `limit` groups by revenue
+            Comparator<OrderLineQueryResult.Group> byRevenue =
+                    Comparator.comparingLong(OrderLineQueryResult.Group::getRevenueCents);
+            PriorityQueue<OrderLineQueryResult.Group> heap = new PriorityQueue<>(byRevenue);
+            int capacity = Math.max(1, limit);
+
+            if (lines != null) {
+                for (int cell = 0; cell < lines.length; cell++) {
+                    if (lines[cell] > 0) {
+                        offer(heap, capacity, grouping, cell, lines[cell], units[cell], revenue[cell]);
+                    }
+                }
+            } else {
+                sparse.forEach((key, totals) ->
+                        offer(heap, capacity, grouping, key, totals[0], totals[1], totals[2]));
+            }
+
+            List<OrderLineQueryResult.Group> result = new ArrayList<>(heap);
+            result.sort(byRevenue.reversed());
+            return result;
+        }
+
+        private static void offer(PriorityQueue<OrderLineQueryResult.Group> heap, int capacity, Grouping grouping,
+                                  long key, long lineCount, long unitCount, long revenueCents) {
+            if (heap.size() == capacity) {
+                if (heap.peek().getRevenueCents() >= revenueCents) {
+                    return;
+                }
+                heap.poll();
+            }
+            heap.add(new OrderLineQueryResult.Group(grouping.decode(key), lineCount, unitCount, revenueCents));
+        }
+    }
+}
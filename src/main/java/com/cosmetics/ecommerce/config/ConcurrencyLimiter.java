@@ -0,0 +1,166 @@
+package com.cosmetics.ecommerce.config;
+
+import com.cosmetics.ecommerce.dto.ConcurrencyLimitStatsDto;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Adaptive in-flight limits per endpoint class, configured as
+ * {@code concurrency-limit.<class>.initial|min|max|target-latency-ms}.
+ *
+ * <p>Limits follow AIMD: every request that completes within the class's target latency
+ * while the limit is at least half used raises it by {@code 1 / limit} (about one per
+ * window), and a request slower than the target cuts it by 10%, at most once per target
+ * interval. Once a slow class has backed off, its surplus requests are turned away before
+ * they take a worker thread or a database connection from the other classes.
+ */
+@Component
+public class ConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    public enum EndpointClass {
+        CATALOG, CHECKOUT, ANALYTICS, UPLOADS;
+
+        static EndpointClass of(HttpServletRequest request) {
+            String path = request.getRequestURI().substring(request.getContextPath().length());
+            if ("GET".equals(request.getMethod()) && (path.startsWith("/api/products")
+                    || path.startsWith("/api/categories") || path.startsWith("/api/files/"))) {
+                return CATALOG;
+            }
+            if (path.startsWith("/api/cart") || path.startsWith("/api/orders")) {
+                return CHECKOUT;
+            }
+            // The live sales stream holds its request open by design and is never limited
+            if ((path.startsWith("/api/admin/analytics/") && !path.equals("/api/admin/analytics/stream"))
+                    || path.startsWith("/api/admin/customers/")) {
+                return ANALYTICS;
+            }
+            if (path.startsWith("/api/admin/upload/")) {
+                return UPLOADS;
+            }
+            return null;
+        }
+    }
+
+    private final boolean enabled;
+    private final Map<EndpointClass, Limit> limits = new EnumMap<>(EndpointClass.class);
+
+    public ConcurrencyLimiter(Environment environment) {
+        this.enabled = environment.getProperty("concurrency-limit.enabled", Boolean.class, true);
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            String prefix = "concurrency-limit." + endpointClass.name().toLowerCase() + ".";
+            limits.put(endpointClass, new Limit(
+                    environment.getRequiredProperty(prefix + "initial", Integer.class),
+                    environment.getRequiredProperty(prefix + "min", Integer.class),
+                    environment.getRequiredProperty(prefix + "max", Integer.class),
+                    environment.getRequiredProperty(prefix + "target-latency-ms", Long.class)));
+        }
+    }
+
+    /**
+     * @return the limited class the request belongs to, or {@code null} if it is not limited
+     */
+    public EndpointClass classOf(HttpServletRequest request) {
+        return enabled ? EndpointClass.of(request) : null;
+    }
+
+    /**
+     * @return whether the request may proceed; if so {@link #release} must follow
+     */
+    public boolean tryAcquire(EndpointClass endpointClass) {
+        return limits.get(endpointClass).tryAcquire();
+    }
+
+    public void release(EndpointClass endpointClass, long latencyNanos) {
+        limits.get(endpointClass).release(latencyNanos, System.nanoTime());
+    }
+
+    public List<ConcurrencyLimitStatsDto> getStats() {
+        List<ConcurrencyLimitStatsDto> stats = new ArrayList<>();
+        for (Map.Entry<EndpointClass, Limit> entry : limits.entrySet()) {
+            Limit limit = entry.getValue();
+            stats.add(new ConcurrencyLimitStatsDto(entry.getKey().name().toLowerCase(), limit.currentLimit(),
+                    limit.min, limit.max, limit.inFlight.get(), TimeUnit.NANOSECONDS.toMillis(limit.targetLatencyNanos),
+                    limit.accepted.sum(), limit.rejected.sum(), limit.decreases.sum()));
+        }
+        return stats;
+    }
+
+    private static final class Limit {
+        final int min;
+        final int max;
+        final long targetLatencyNanos;
+        final AtomicInteger inFlight = new AtomicInteger();
+        // Fractional limit as raw double bits, so increases and decreases are single CAS updates
+        final AtomicLong limitBits;
+        final AtomicLong lastDecreaseNanos;
+        final LongAdder accepted = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder decreases = new LongAdder();
+
+        Limit(int initial, int min, int max, long targetLatencyMillis) {
+            if (min < 1 || min > initial || initial > max) {
+                throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= initial <= max");
+            }
+            this.min = min;
+            this.max = max;
+            this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+            this.limitBits = new AtomicLong(Double.doubleToRawLongBits(initial));
+            this.lastDecreaseNanos = new AtomicLong(System.nanoTime() - targetLatencyNanos);
+        }
+
+        int currentLimit() {
+            return (int) Double.longBitsToDouble(limitBits.get());
+        }
+
+        boolean tryAcquire() {
+            while (true) {
+                int current = inFlight.get();
+                if (current >= currentLimit()) {
+                    rejected.increment();
+                    return false;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    accepted.increment();
+                    return true;
+                }
+            }
+        }
+
+        void release(long latencyNanos, long now) {
+            int inFlightBefore = inFlight.getAndDecrement();
+            if (latencyNanos > targetLatencyNanos) {
+                long last = lastDecreaseNanos.get();
+                // One cut per target interval, so a burst of slow responses from one stall does not collapse the limit
+                if (now - last >= targetLatencyNanos && lastDecreaseNanos.compareAndSet(last, now)) {
+                    update(limit -> Math.max(min, limit * BACKOFF_RATIO));
+                    decreases.increment();
+                }
+            } else {
+                update(limit -> inFlightBefore * 2 >= limit ? Math.min(max, limit + 1.0 / limit) : limit);
+            }
+        }
+
+        private void update(DoubleUnaryOperator function) {
+            while (true) {
+                long bits = limitBits.get();
+                double next = function.applyAsDouble(Double.longBitsToDouble(bits));
+                if (limitBits.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.cosmetics.ecommerce.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records how many SQL statements each request executed, tagged like {@code http.server.requests}
+ * by method and URI template, so an N+1 shows up as a per-endpoint query count rather than
+ * only as latency.
+ */
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private final QueryCounter queryCounter;
+    private final MeterRegistry registry;
+
+    public QueryCountFilter(QueryCounter queryCounter, MeterRegistry registry) {
+        this.queryCounter = queryCounter;
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryCounter.Scope scope = queryCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            scope.close();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("http.server.requests.queries")
+                    .description("SQL statements executed per request")
+                    .baseUnit("statements")
+                    .tag("method", request.getMethod())
+                    // Unmatched paths share one tag so scanners cannot blow up the series count
+                    .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                    .serviceLevelObjectives(1, 2, 3, 5, 10, 20, 50, 100)
+                    .register(registry)
+                    .record(scope.getCount());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.cosmetics.ecommerce.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the SQL statements Hibernate prepares, in total and for each {@link Scope} open on
+ * the current thread. A request is served on one thread, so a scope around it gives the number
+ * of queries that request executed. Scopes nest: a statement counts towards every open scope.
+ */
+public class QueryCounter implements StatementInspector {
+
+    // StatementInspector is Serializable, but a counter is never serialized; scopes are per thread anyway
+    private static final long serialVersionUID = 1L;
+
+    private final transient ThreadLocal<Scope> current = new ThreadLocal<>();
+    private final LongAdder total = new LongAdder();
+
+    @Override
+    public String inspect(String sql) {
+        total.increment();
+        for (Scope scope = current.get(); scope != null; scope = scope.parent) {
+            scope.count++;
+        }
+        return sql;
+    }
+
+    /**
+     * Starts counting statements on the current thread until the returned scope is closed.
+     */
+    public Scope start() {
+        Scope scope = new Scope(current.get());
+        current.set(scope);
+        return scope;
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public final class Scope implements AutoCloseable {
+        private final Scope parent;
+        private long count;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public void close() {
+            if (parent != null) {
+                current.set(parent);
+            } else {
+                current.remove();
+            }
+        }
+    }
+}
@@ -1,14 +1,24 @@
 package com.cosmetics.ecommerce.controller;
 
+import com.cosmetics.ecommerce.analytics.LiveSalesFeed;
+import com.cosmetics.ecommerce.dto.AnalyticsQueryDto;
+import com.cosmetics.ecommerce.dto.CohortDto;
+import com.cosmetics.ecommerce.dto.CohortJobStatusDto;
 import com.cosmetics.ecommerce.dto.SalesAnalyticsDto;
 import com.cosmetics.ecommerce.service.AnalyticsService;
+import com.cosmetics.ecommerce.service.CohortAnalysisService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/admin/analytics")
@@ -18,18 +28,74 @@ public class AnalyticsController {
     @Autowired
     private AnalyticsService analyticsService;
 
+    @Autowired
+    private LiveSalesFeed liveSalesFeed;
+
+    @Autowired
+    private CohortAnalysisService cohortAnalysisService;
+
     @GetMapping("/sales")
     public ResponseEntity<SalesAnalyticsDto> getSalesAnalytics(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "0") int offset) {
         
         SalesAnalyticsDto analytics;
         if (startDate != null && endDate != null) {
-            analytics = analyticsService.getSalesAnalytics(startDate, endDate);
+            analytics = analyticsService.getSalesAnalytics(startDate, endDate, limit, offset);
         } else {
-            analytics = analyticsService.getSalesAnalytics();
+            analytics = analyticsService.getSalesAnalytics(limit, offset);
         }
         
         return ResponseEntity.ok(analytics);
     }
+
+    @GetMapping("/top-products")
+    public ResponseEntity<List<SalesAnalyticsDto.TopProductDto>> getTopProducts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        LocalDate end = endDate != null ? endDate : LocalDate.now();
+        LocalDate start = startDate != null ? startDate : end.minusDays(30);
+        return ResponseEntity.ok(analyticsService.getLiveTopProducts(start, end, limit));
+    }
+
+    @GetMapping("/query")
+    public ResponseEntity<AnalyticsQueryDto> queryOrderLines(
+            @RequestParam(required = false) String groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "100") int limit) {
+        
+        return ResponseEntity.ok(analyticsService.queryOrderLines(groupBy, startDate, endDate,
+                categoryId, productId, minPrice, maxPrice, limit));
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSales() {
+        return liveSalesFeed.subscribe();
+    }
+
+    @GetMapping("/cohorts")
+    public ResponseEntity<List<CohortDto>> getCohorts() {
+        return ResponseEntity.ok(cohortAnalysisService.getCohorts());
+    }
+
+    @PostMapping("/cohorts/run")
+    public ResponseEntity<CohortJobStatusDto> runCohortAnalysis() {
+        boolean started = cohortAnalysisService.start();
+        return new ResponseEntity<>(cohortAnalysisService.getStatus(),
+                started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT);
+    }
+
+    @GetMapping("/cohorts/status")
+    public ResponseEntity<CohortJobStatusDto> getCohortAnalysisStatus() {
+        return ResponseEntity.ok(cohortAnalysisService.getStatus());
+    }
 }
\ No newline at end of file
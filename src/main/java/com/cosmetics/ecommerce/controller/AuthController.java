@@ -2,23 +2,37 @@ package com.cosmetics.ecommerce.controller;
 
 import com.cosmetics.ecommerce.dto.AuthRequest;
 import com.cosmetics.ecommerce.dto.AuthResponse;
+import com.cosmetics.ecommerce.dto.RefreshRequest;
 import com.cosmetics.ecommerce.dto.RegisterRequest;
+import com.cosmetics.ecommerce.security.SigningKeyStore;
 import com.cosmetics.ecommerce.service.AuthenticationService;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
 
     private final AuthenticationService authenticationService;
+    private final SigningKeyStore signingKeyStore;
+    private final long jwksMaxAgeMillis;
 
-    public AuthController(AuthenticationService authenticationService) {
+    public AuthController(AuthenticationService authenticationService, SigningKeyStore signingKeyStore,
+                          @Value("${jwt.keys.jwks-max-age-ms}") long jwksMaxAgeMillis) {
         this.authenticationService = authenticationService;
+        this.signingKeyStore = signingKeyStore;
+        this.jwksMaxAgeMillis = jwksMaxAgeMillis;
     }
 
     @PostMapping("/login")
@@ -26,6 +40,29 @@ public class AuthController {
         return ResponseEntity.ok(authenticationService.login(loginRequest));
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshRequest refreshRequest) {
+        return ResponseEntity.ok(authenticationService.refresh(refreshRequest.getRefreshToken()));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestBody(required = false) RefreshRequest refreshRequest) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7) : null;
+        authenticationService.logout(accessToken, refreshRequest != null ? refreshRequest.getRefreshToken() : null);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/jwks")
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        // Keys are listed jwt.keys.publish-lead-ms before they sign, which must exceed this
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(jwksMaxAgeMillis, TimeUnit.MILLISECONDS).cachePublic())
+                .body(signingKeyStore.getJwks());
+    }
+
     @PostMapping("/register")
     public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest registerRequest) {
         return ResponseEntity.ok(authenticationService.register(registerRequest));
@@ -1,12 +1,12 @@
 package com.cosmetics.ecommerce.controller;
 
 import com.cosmetics.ecommerce.dto.CartDto;
+import com.cosmetics.ecommerce.security.AuthenticatedUser;
 import com.cosmetics.ecommerce.service.CartService;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -59,11 +59,6 @@ public class CartController {
     }
 
     private Long getUserIdFromAuthentication(Authentication authentication) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        String username = userDetails.getUsername();
-        // You would typically fetch the user's ID based on the username
-        // For now, let's assume we can extract it from the authentication principal
-        // In a real application, you would use a service to fetch the user ID
-        return 1L; // Placeholder, needs to be implemented correctly
+        return ((AuthenticatedUser) authentication.getPrincipal()).getId();
     }
 } 
\ No newline at end of file
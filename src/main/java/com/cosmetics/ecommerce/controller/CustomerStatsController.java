@@ -0,0 +1,44 @@
+package com.cosmetics.ecommerce.controller;
+
+import com.cosmetics.ecommerce.dto.CustomerStatsDto;
+import com.cosmetics.ecommerce.service.CustomerStatsService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/customers")
+@PreAuthorize("hasRole('ADMIN')")
+public class CustomerStatsController {
+
+    private final CustomerStatsService customerStatsService;
+
+    public CustomerStatsController(CustomerStatsService customerStatsService) {
+        this.customerStatsService = customerStatsService;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Page<CustomerStatsDto>> getCustomerStats(
+            @PageableDefault(page = 0, size = 20, sort = "lifetimeValue", direction = Sort.Direction.DESC) Pageable pageable) {
+        return ResponseEntity.ok(customerStatsService.getCustomerStats(pageable));
+    }
+
+    @GetMapping("/{userId}/stats")
+    public ResponseEntity<CustomerStatsDto> getCustomerStatsForUser(@PathVariable Long userId) {
+        return ResponseEntity.ok(customerStatsService.getCustomerStats(userId));
+    }
+
+    @PostMapping("/stats/backfill")
+    public ResponseEntity<Map<String, Object>> backfillCustomerStats() {
+        boolean started = customerStatsService.startBackfill();
+        return new ResponseEntity<>(Map.of("started", started, "running", customerStatsService.isBackfillRunning()),
+                started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT);
+    }
+}
@@ -0,0 +1,250 @@
+package com.cosmetics.ecommerce.controller;
+
+import com.cosmetics.ecommerce.storage.HotAssetCache;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.ServletResponseWrapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.connector.CoyoteOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes a stored file to the response with validators, conditional requests and single
+ * byte ranges. On Tomcat's NIO connector the body never enters the JVM: the file is handed
+ * to the connector for sendfile once the handler returns. Elsewhere (TLS connectors, other
+ * containers) it is copied through the response stream.
+ */
+@Component
+public class FileResponseWriter {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final int maxCachedETags;
+    private final HotAssetCache hotAssetCache;
+
+    // Content hashes of files not named after one, keyed by path and reused while size and modification time hold
+    private final Map<Path, ContentTag> etags = new ConcurrentHashMap<>();
+
+    public FileResponseWriter(@Value("${file.serving.etag-cache-max-entries}") int maxCachedETags,
+                              HotAssetCache hotAssetCache) {
+        this.maxCachedETags = maxCachedETags;
+        this.hotAssetCache = hotAssetCache;
+    }
+
+    public void write(HttpServletRequest request, HttpServletResponse response, Path file, String contentType,
+                      String cacheControl) throws IOException {
+        write(request, response, file, contentType, cacheControl, null, null);
+    }
+
+    /**
+     * @param hotCacheKey key under which the file may be admitted to the {@link HotAssetCache} once it is
+     *                    requested often, or {@code null} for files that may change under their name
+     * @param contentTag  identifies the content for good, such as the SHA-256 a blob is named after, and
+     *                    becomes the ETag; {@code null} to hash the file instead
+     */
+    public void write(HttpServletRequest request, HttpServletResponse response, Path file, String contentType,
+                      String cacheControl, String hotCacheKey, String contentTag) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = contentTag != null ? "\"" + contentTag + "\"" : etag(file, length, lastModified);
+
+        if (hotCacheKey != null) {
+            HotAssetCache.Asset asset = hotAssetCache.admit(hotCacheKey, file, length, lastModified, etag, contentType);
+            if (asset != null) {
+                write(request, response, asset, cacheControl);
+                return;
+            }
+        }
+
+        long[] range = prepare(request, response, length, lastModified, etag, contentType, cacheControl);
+        if (range == null) {
+            return;
+        }
+        long start = range[0];
+        long end = range[1];
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        // transferTo into the servlet stream measured slower than a plain copy (FileServingBenchmark)
+        try (InputStream in = Files.newInputStream(file)) {
+            StreamUtils.copyRange(in, response.getOutputStream(), start, end);
+        }
+    }
+
+    /**
+     * Writes a file held in the hot cache. This saves the disk read, but not a copy: Tomcat's
+     * {@code CoyoteOutputStream} copies the direct buffer through the response's heap buffer, where a
+     * file on disk would have gone out by sendfile without entering the JVM at all.
+     */
+    public void write(HttpServletRequest request, HttpServletResponse response, HotAssetCache.Asset asset,
+                      String cacheControl) throws IOException {
+        long[] range = prepare(request, response, asset.getLength(), asset.getLastModified(), asset.getEtag(),
+                asset.getContentType(), cacheControl);
+        if (range == null) {
+            return;
+        }
+
+        ByteBuffer body = asset.getContent();
+        body.position((int) range[0]).limit((int) range[1] + 1);
+        ServletResponse target = response;
+        while (target instanceof ServletResponseWrapper wrapper) {
+            target = wrapper.getResponse();
+        }
+        if (target.getOutputStream() instanceof CoyoteOutputStream coyote) {
+            // Commit first so wrappers that add headers on commit (Spring Security's) still see it
+            response.flushBuffer();
+            coyote.write(body);
+            return;
+        }
+        WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+        while (body.hasRemaining()) {
+            channel.write(body);
+        }
+    }
+
+    /**
+     * Sets the response headers and answers conditional and unsatisfiable requests.
+     *
+     * @return the inclusive byte range to send, or {@code null} if the response is already complete
+     */
+    private long[] prepare(HttpServletRequest request, HttpServletResponse response, long length, long lastModified,
+                           String etag, String contentType, String cacheControl) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Sets ETag and Last-Modified, and answers 304 or 412 from the request's preconditions
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return null;
+        }
+        response.setContentType(contentType);
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && rangeApplies(request, etag, lastModified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    if (start >= length || start > end) {
+                        throw new IllegalArgumentException("Range starts beyond the end of the file");
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return null;
+            }
+            // Several ranges would need a multipart body; answering with the whole file is allowed
+            if (ranges.size() == 1) {
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return null;
+        }
+        return new long[] {start, end};
+    }
+
+    public int getCachedETagCount() {
+        return etags.size();
+    }
+
+    private boolean rangeApplies(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private String etag(Path file, long length, long lastModified) throws IOException {
+        ContentTag cached = etags.get(file);
+        if (cached != null && cached.length == length && cached.lastModified == lastModified) {
+            return cached.etag;
+        }
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        byte[] hash = digest.digest();
+        String etag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 22) + "\"";
+
+        if (etags.size() >= maxCachedETags) {
+            // Drop an arbitrary tenth; hashes are cheap to recompute on the next hit
+            int target = maxCachedETags - Math.max(1, maxCachedETags / 10);
+            Iterator<Path> keys = etags.keySet().iterator();
+            while (etags.size() > target && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        etags.put(file, new ContentTag(length, lastModified, etag));
+        return etag;
+    }
+
+    private static final class ContentTag {
+        final long length;
+        final long lastModified;
+        final String etag;
+
+        ContentTag(long length, long lastModified, String etag) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.etag = etag;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.cosmetics.ecommerce.controller;
+
+import com.cosmetics.ecommerce.config.ConcurrencyLimiter;
+import com.cosmetics.ecommerce.dto.ConcurrencyLimitStatsDto;
+import com.cosmetics.ecommerce.dto.HotAssetCacheStatsDto;
+import com.cosmetics.ecommerce.dto.PasswordHashingStatsDto;
+import com.cosmetics.ecommerce.dto.RateLimitStatsDto;
+import com.cosmetics.ecommerce.security.BoundedPasswordEncoder;
+import com.cosmetics.ecommerce.security.RateLimiter;
+import com.cosmetics.ecommerce.storage.HotAssetCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/metrics")
+@PreAuthorize("hasRole('ADMIN')")
+public class MetricsController {
+
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final RateLimiter rateLimiter;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final HotAssetCache hotAssetCache;
+
+    public MetricsController(BoundedPasswordEncoder passwordEncoder, RateLimiter rateLimiter,
+                             ConcurrencyLimiter concurrencyLimiter, HotAssetCache hotAssetCache) {
+        this.passwordEncoder = passwordEncoder;
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.hotAssetCache = hotAssetCache;
+    }
+
+    @GetMapping("/password-hashing")
+    public ResponseEntity<PasswordHashingStatsDto> getPasswordHashingStats() {
+        return ResponseEntity.ok(passwordEncoder.getStats());
+    }
+
+    @GetMapping("/rate-limits")
+    public ResponseEntity<List<RateLimitStatsDto>> getRateLimitStats() {
+        return ResponseEntity.ok(rateLimiter.getStats());
+    }
+
+    @GetMapping("/concurrency-limits")
+    public ResponseEntity<List<ConcurrencyLimitStatsDto>> getConcurrencyLimitStats() {
+        return ResponseEntity.ok(concurrencyLimiter.getStats());
+    }
+
+    @GetMapping("/hot-assets")
+    public ResponseEntity<HotAssetCacheStatsDto> getHotAssetCacheStats() {
+        return ResponseEntity.ok(hotAssetCache.getStats());
+    }
+}
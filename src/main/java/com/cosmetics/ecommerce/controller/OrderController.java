@@ -2,6 +2,7 @@ package com.cosmetics.ecommerce.controller;
 
 import com.cosmetics.ecommerce.dto.OrderDto;
 import com.cosmetics.ecommerce.model.Order;
+import com.cosmetics.ecommerce.security.AuthenticatedUser;
 import com.cosmetics.ecommerce.service.OrderService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
@@ -11,7 +12,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -51,8 +51,8 @@ public class OrderController {
     public ResponseEntity<OrderDto> getOrderById(
             Authentication authentication,
             @PathVariable Long id) {
-        Long userId = getUserIdFromAuthentication(authentication);
-        return ResponseEntity.ok(orderService.getOrderById(id, userId));
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        return ResponseEntity.ok(orderService.getOrderById(id, user.getId(), user.hasRole("ROLE_ADMIN")));
     }
 
     @GetMapping("/admin/orders")
@@ -90,11 +90,6 @@ public class OrderController {
     }
 
     private Long getUserIdFromAuthentication(Authentication authentication) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        String username = userDetails.getUsername();
-        // You would typically fetch the user's ID based on the username
-        // For now, let's assume we can extract it from the authentication principal
-        // In a real application, you would use a service to fetch the user ID
-        return 1L; // Placeholder, needs to be implemented correctly
+        return ((AuthenticatedUser) authentication.getPrincipal()).getId();
     }
 } 
\ No newline at end of file
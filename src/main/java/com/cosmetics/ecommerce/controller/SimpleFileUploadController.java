@@ -1,30 +1,47 @@
 package com.cosmetics.ecommerce.controller;
 
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
+import com.cosmetics.ecommerce.dto.UploadSweepStatusDto;
+import com.cosmetics.ecommerce.service.FileStorageService;
+import com.cosmetics.ecommerce.service.ImageVariantService;
+import com.cosmetics.ecommerce.service.UploadCleanupService;
+import com.cosmetics.ecommerce.storage.HotAssetCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.net.URI;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api")
 public class SimpleFileUploadController {
 
-    private final String UPLOAD_DIR = "uploads/products";
+    private final FileStorageService fileStorageService;
+    private final FileResponseWriter fileResponseWriter;
+    private final HotAssetCache hotAssetCache;
+    private final UploadCleanupService uploadCleanupService;
+
+    public SimpleFileUploadController(FileStorageService fileStorageService, FileResponseWriter fileResponseWriter,
+                                      HotAssetCache hotAssetCache, UploadCleanupService uploadCleanupService) {
+        this.fileStorageService = fileStorageService;
+        this.fileResponseWriter = fileResponseWriter;
+        this.hotAssetCache = hotAssetCache;
+        this.uploadCleanupService = uploadCleanupService;
+    }
 
     @GetMapping("/test-simple")
     public ResponseEntity<String> test() {
@@ -35,46 +52,24 @@ public class SimpleFileUploadController {
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> uploadImage(@RequestParam("file") MultipartFile file) {
         try {
-            // Basic validation
-            if (file.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "File is empty"));
-            }
-
-            // Check file size (5MB max)
-            if (file.getSize() > 5 * 1024 * 1024) {
-                return ResponseEntity.badRequest().body(Map.of("error", "File size exceeds 5MB limit"));
-            }
-
-            // Check file type
-            String contentType = file.getContentType();
-            if (!Arrays.asList("image/jpeg", "image/jpg", "image/png", "image/webp").contains(contentType)) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Invalid file type. Allowed: JPEG, PNG, WebP"));
-            }
-
-            // Create upload directory
-            Path uploadPath = Paths.get(UPLOAD_DIR);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-
-            // Generate unique filename
-            String originalFileName = file.getOriginalFilename();
-            String fileExtension = originalFileName.substring(originalFileName.lastIndexOf('.'));
-            String fileName = UUID.randomUUID().toString() + fileExtension;
-
-            // Save file
-            Path filePath = uploadPath.resolve(fileName);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            // Validates, stores the original and queues its display variants
+            FileStorageService.StoredFile stored = fileStorageService.storeFile(file);
 
             // Return response
             Map<String, Object> response = new HashMap<>();
-            response.put("fileName", fileName);
-            response.put("fileUrl", "http://localhost:8080/api/files/" + fileName);
-            response.put("originalName", originalFileName);
-            response.put("size", file.getSize());
+            response.put("fileName", stored.getFileName());
+            response.put("fileUrl", "http://localhost:8080/api/files/" + stored.getFileName());
+            response.put("originalName", file.getOriginalFilename());
+            response.put("size", stored.getSize());
+            response.put("width", stored.getWidth());
+            response.put("height", stored.getHeight());
+            response.put("contentHash", stored.getContentHash());
+            response.put("duplicate", stored.isDuplicate());
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (IOException e) {
             return ResponseEntity.internalServerError().body(Map.of("error", "Could not store file: " + e.getMessage()));
         } catch (Exception e) {
@@ -82,27 +77,90 @@ public class SimpleFileUploadController {
         }
     }
 
+    /**
+     * Serves an upload, or one of its display variants when {@code variant} (thumb, card, detail, original) or
+     * {@code w} (smallest variant at least that wide) is given. Until a variant exists the original is served.
+     */
     @GetMapping("/files/{fileName:.+}")
-    public ResponseEntity<Resource> serveFile(@PathVariable String fileName) {
-        try {
-            Path filePath = Paths.get(UPLOAD_DIR).resolve(fileName);
-            File file = filePath.toFile();
-            
-            if (!file.exists() || !file.isFile()) {
-                return ResponseEntity.notFound().build();
-            }
+    public void serveFile(@PathVariable String fileName,
+                          @RequestParam(required = false) String variant,
+                          @RequestParam(required = false) Integer w,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImageVariantService.Variant requested = null;
+        if (variant != null) {
+            requested = ImageVariantService.Variant.parse(variant);
+        } else if (w != null) {
+            requested = ImageVariantService.Variant.forWidth(w);
+        }
 
-            Resource resource = new FileSystemResource(file);
-            String contentType = determineContentType(fileName);
+        Optional<URI> directUrl = fileStorageService.getDirectUrl(fileName, requested);
+        if (directUrl.isPresent()) {
+            // The link expires, so the redirect itself must not outlive it in caches
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.maxAge(60, TimeUnit.SECONDS).getHeaderValue());
+            response.setHeader(HttpHeaders.LOCATION, directUrl.get().toString());
+            response.setStatus(HttpStatus.FOUND.value());
+            return;
+        }
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileName + "\"")
-                    .body(resource);
+        boolean immutable = fileStorageService.isImmutableName(fileName);
+        CacheControl cacheControl = immutable
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+                : CacheControl.noCache();
+        // Only content that can never change under its name may be held in the hot cache
+        String hotCacheKey = null;
+        if (immutable) {
+            hotCacheKey = requested == null ? fileName : HotAssetCache.variantKey(fileName, requested.name());
+            HotAssetCache.Asset hot = hotAssetCache.get(hotCacheKey);
+            if (hot != null) {
+                response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileName + "\"");
+                fileResponseWriter.write(request, response, hot, cacheControl.getHeaderValue());
+                return;
+            }
+        }
 
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
+        Optional<Path> original = fileStorageService.getFile(fileName);
+        if (original.isEmpty()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
         }
+
+        Path file = original.get();
+        String contentType = determineContentType(fileName);
+        // Blobs are tagged by the hash in their name; only legacy uploads are hashed on first request
+        String contentTag = fileStorageService.getContentHash(fileName);
+        // An original that cannot be decoded is the permanent answer for every variant
+        if (requested != null && fileStorageService.hasVariants(fileName)) {
+            Optional<Path> variantFile = fileStorageService.getVariantFile(fileName, requested);
+            if (variantFile.isPresent()) {
+                file = variantFile.get();
+                contentType = MediaType.IMAGE_JPEG_VALUE;
+                if (contentTag != null) {
+                    contentTag += "-" + requested.name().toLowerCase(Locale.ROOT);
+                }
+            } else {
+                // Stand-in for a variant still being generated; must not be pinned in caches
+                cacheControl = CacheControl.maxAge(60, TimeUnit.SECONDS).cachePublic();
+                hotCacheKey = null;
+            }
+        }
+
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileName + "\"");
+        fileResponseWriter.write(request, response, file, contentType, cacheControl.getHeaderValue(), hotCacheKey,
+                contentTag);
+    }
+
+    @PostMapping("/admin/uploads/cleanup")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UploadSweepStatusDto> runUploadCleanup(@RequestParam(defaultValue = "false") boolean dryRun) {
+        boolean started = uploadCleanupService.start(dryRun);
+        return new ResponseEntity<>(uploadCleanupService.getStatus(),
+                started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT);
+    }
+
+    @GetMapping("/admin/uploads/cleanup/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UploadSweepStatusDto> getUploadCleanupStatus() {
+        return ResponseEntity.ok(uploadCleanupService.getStatus());
     }
 
     @GetMapping("/upload/restrictions")
@@ -2,6 +2,7 @@ package com.cosmetics.ecommerce.controller;
 
 import com.cosmetics.ecommerce.dto.UserDto;
 import com.cosmetics.ecommerce.model.User;
+import com.cosmetics.ecommerce.security.AuthenticatedUser;
 import com.cosmetics.ecommerce.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
@@ -10,7 +11,6 @@ import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -38,9 +38,8 @@ public class UserController {
 
     @GetMapping("/me")
     public ResponseEntity<UserDto> getCurrentUser(Authentication authentication) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        String username = userDetails.getUsername();
-        return ResponseEntity.ok(userService.getUserByUsername(username));
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
+        return ResponseEntity.ok(userService.getUserById(currentUser.getId()));
     }
 
     @PutMapping("/{id}")
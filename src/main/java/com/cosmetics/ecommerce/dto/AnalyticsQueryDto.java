@@ -0,0 +1,32 @@
+package com.cosmetics.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsQueryDto {
+
+    private List<String> groupBy = new ArrayList<>();
+    private long rowsScanned;
+    private long rowsMatched;
+    private long elapsedMillis;
+    private List<GroupDto> groups = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class GroupDto {
+        private Map<String, Object> key;
+        private Long orderLines;
+        private Long unitsSold;
+        private BigDecimal revenue;
+    }
+}
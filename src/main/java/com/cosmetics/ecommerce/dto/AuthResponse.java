@@ -11,10 +11,12 @@ public class AuthResponse {
     
     private String token;
     private String tokenType = "Bearer";
+    private String refreshToken;
     private UserDto user;
     
-    public AuthResponse(String token, UserDto user) {
+    public AuthResponse(String token, String refreshToken, UserDto user) {
         this.token = token;
+        this.refreshToken = refreshToken;
         this.user = user;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.cosmetics.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CohortDto {
+    
+    private String cohortMonth;
+    private long cohortSize;
+    private LocalDateTime computedAt;
+    private List<RetentionDto> retention = new ArrayList<>();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RetentionDto {
+        private int monthOffset;
+        private long activeCustomers;
+        private BigDecimal retentionRate;
+    }
+}
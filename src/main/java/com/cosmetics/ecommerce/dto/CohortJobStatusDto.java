@@ -0,0 +1,22 @@
+package com.cosmetics.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CohortJobStatusDto {
+    
+    private String state;
+    private String phase;
+    private long ordersRead;
+    private long customersProcessed;
+    private int cohorts;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
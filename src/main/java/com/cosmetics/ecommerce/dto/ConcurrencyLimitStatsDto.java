@@ -0,0 +1,21 @@
+package com.cosmetics.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConcurrencyLimitStatsDto {
+
+    private String endpointClass;
+    private int limit;
+    private int minLimit;
+    private int maxLimit;
+    private int inFlight;
+    private long targetLatencyMillis;
+    private long accepted;
+    private long rejected;
+    private long decreases;
+}
@@ -0,0 +1,22 @@
+package com.cosmetics.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerStatsDto {
+    
+    private Long userId;
+    private String username;
+    private long orderCount;
+    private BigDecimal lifetimeValue;
+    private BigDecimal averageBasket;
+    private LocalDateTime firstOrderDate;
+    private LocalDateTime lastOrderDate;
+}
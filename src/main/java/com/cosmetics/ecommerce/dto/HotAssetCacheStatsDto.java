@@ -0,0 +1,20 @@
+package com.cosmetics.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotAssetCacheStatsDto {
+
+    private int entries;
+    private long bytesResident;
+    private long maxBytes;
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    private long admissions;
+    private long evictions;
+}
@@ -0,0 +1,21 @@
+package com.cosmetics.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PasswordHashingStatsDto {
+
+    private int threads;
+    private int activeThreads;
+    private int queued;
+    private int queueCapacity;
+    private long completed;
+    private long rejected;
+    private double averageQueueWaitMillis;
+    private double averageHashMillis;
+    private double maxHashMillis;
+}
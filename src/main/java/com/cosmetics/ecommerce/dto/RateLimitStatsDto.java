@@ -0,0 +1,18 @@
+package com.cosmetics.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimitStatsDto {
+
+    private String group;
+    private long requestsPerMinute;
+    private long burst;
+    private long allowed;
+    private long throttled;
+    private long trackedClients;
+}
@@ -0,0 +1,21 @@
+package com.cosmetics.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesDeltaDto {
+
+    private LocalDateTime timestamp;
+    private long orders;
+    private BigDecimal revenue;
+    private long unitsSold;
+    private Map<String, Long> statusCounts;
+}
@@ -0,0 +1,28 @@
+package com.cosmetics.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSweepStatusDto {
+
+    private String state;
+    private boolean dryRun;
+    private long gracePeriodHours;
+    private long filesScanned;
+    private long referenced;
+    private long tooRecent;
+    private long orphaned;
+    private long deleted;
+    private long bytesReclaimed;
+    private List<String> orphans;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
@@ -0,0 +1,33 @@
+package com.cosmetics.ecommerce.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Published by OrderService once an order has been written. Carries plain values
+ * rather than entities so listeners can run after the transaction has committed.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderPlacedEvent {
+
+    private final Long orderId;
+    private final Long userId;
+    private final LocalDateTime orderDate;
+    private final BigDecimal totalAmount;
+    private final List<Line> lines;
+
+    @Getter
+    @AllArgsConstructor
+    public static class Line {
+        private final Long productId;
+        private final Long categoryId;
+        private final int quantity;
+        private final BigDecimal unitPrice;
+        private final BigDecimal subtotal;
+    }
+}
@@ -0,0 +1,21 @@
+package com.cosmetics.ecommerce.event;
+
+import com.cosmetics.ecommerce.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Published by OrderService when an order moves from one status to another.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderStatusChangedEvent {
+
+    private final Long orderId;
+    private final Long userId;
+    private final BigDecimal totalAmount;
+    private final Order.OrderStatus previousStatus;
+    private final Order.OrderStatus newStatus;
+}
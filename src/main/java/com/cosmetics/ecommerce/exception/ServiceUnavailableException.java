@@ -0,0 +1,21 @@
+package com.cosmetics.ecommerce.exception;
+
+/**
+ * Thrown when a bounded resource is saturated and the request should be retried later
+ * rather than queued indefinitely.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
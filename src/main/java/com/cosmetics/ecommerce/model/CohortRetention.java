@@ -0,0 +1,43 @@
+package com.cosmetics.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "cohort_retention", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"cohortMonth", "monthOffset"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CohortRetention {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // First day of the month in which the cohort placed its first order
+    @Column(nullable = false)
+    private LocalDate cohortMonth;
+
+    @Column(nullable = false)
+    private int monthOffset;
+
+    @Column(nullable = false)
+    private long cohortSize;
+
+    @Column(nullable = false)
+    private long activeCustomers;
+
+    @Column(nullable = false, precision = 7, scale = 4)
+    private BigDecimal retentionRate;
+
+    @Column(nullable = false)
+    private LocalDateTime computedAt;
+}
@@ -0,0 +1,41 @@
+package com.cosmetics.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "customer_stats", indexes = {
+        @Index(name = "idx_customer_stats_lifetime_value", columnList = "lifetimeValue"),
+        @Index(name = "idx_customer_stats_order_count", columnList = "orderCount")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerStats {
+
+    @Id
+    private Long userId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    // Cancelled orders are excluded from every aggregate
+    @Column(nullable = false)
+    private long orderCount;
+
+    @Column(nullable = false)
+    private BigDecimal lifetimeValue = BigDecimal.ZERO;
+
+    @Column
+    private LocalDateTime firstOrderDate;
+
+    @Column
+    private LocalDateTime lastOrderDate;
+}
@@ -0,0 +1,45 @@
+package com.cosmetics.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * An uploaded image stored once under its SHA-256, however many times it was uploaded.
+ * The file lives at {@code blobs/<hash[0..2]>/<hash[2..4]>/<hash>.<extension>}.
+ */
+@Entity
+@Table(name = "image_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageBlob {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false, length = 8)
+    private String extension;
+
+    @Column(nullable = false)
+    private long size;
+
+    private int width;
+
+    private int height;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    // Bumped when the same content is uploaded again, so the orphan sweeper's grace period restarts
+    @Column(nullable = false)
+    private Instant lastUploadedAt;
+
+    public String getFileName() {
+        return hash + "." + extension;
+    }
+}
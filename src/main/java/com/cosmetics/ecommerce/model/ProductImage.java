@@ -0,0 +1,32 @@
+package com.cosmetics.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Links a product to the stored blob its image URL points at, so blobs no product uses
+ * can be found without parsing every URL.
+ */
+@Entity
+@Table(name = "product_images", indexes = {
+        @Index(name = "idx_product_images_blob", columnList = "blob_hash")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false, unique = true)
+    private Product product;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "blob_hash", nullable = false)
+    private ImageBlob blob;
+}
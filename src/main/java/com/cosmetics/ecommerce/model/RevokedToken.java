@@ -0,0 +1,37 @@
+package com.cosmetics.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A revocation that must survive restarts: either a single token by its {@code jti}, or
+ * every token of a user issued up to {@code issuedBefore}. Rows are deleted once
+ * {@code expiresAt} has passed, since by then the affected tokens have expired anyway.
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_expires_at", columnList = "expiresAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(unique = true, length = 36)
+    private String tokenId;
+
+    private Long userId;
+
+    private Instant issuedBefore;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
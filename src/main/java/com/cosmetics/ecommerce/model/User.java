@@ -3,7 +3,10 @@ package com.cosmetics.ecommerce.model;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.Set;
 
@@ -39,6 +42,8 @@ public class User {
         ROLE_CUSTOMER
     }
 
+    // Loaded for a whole page of users (or of their orders) at once rather than user by user
+    @BatchSize(size = 50)
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
     @Enumerated(EnumType.STRING)
@@ -47,6 +52,8 @@ public class User {
 
     private boolean active = true;
 
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     private Set<Order> orders;
 } 
\ No newline at end of file
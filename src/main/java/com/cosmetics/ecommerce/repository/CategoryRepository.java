@@ -2,8 +2,10 @@ package com.cosmetics.ecommerce.repository;
 
 import com.cosmetics.ecommerce.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +14,8 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     Optional<Category> findByName(String name);
     
     boolean existsByName(String name);
+    
+    // Each category with its product count, without loading the products
+    @Query("SELECT c, COUNT(p) FROM Category c LEFT JOIN c.products p GROUP BY c ORDER BY c.id")
+    List<Object[]> findAllWithProductCounts();
 } 
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.cosmetics.ecommerce.repository;
+
+import com.cosmetics.ecommerce.model.CohortRetention;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CohortRetentionRepository extends JpaRepository<CohortRetention, Long> {
+    
+    List<CohortRetention> findAllByOrderByCohortMonthAscMonthOffsetAsc();
+} 
@@ -0,0 +1,29 @@
+package com.cosmetics.ecommerce.repository;
+
+import com.cosmetics.ecommerce.model.CustomerStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CustomerStatsRepository extends JpaRepository<CustomerStats, Long> {
+    
+    @Override
+    @EntityGraph(attributePaths = "user")
+    Page<CustomerStats> findAll(Pageable pageable);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM CustomerStats s WHERE s.userId = :userId")
+    Optional<CustomerStats> findForUpdate(@Param("userId") Long userId);
+    
+    List<CustomerStats> findByUserIdBetween(Long fromUserId, Long toUserId);
+} 
@@ -0,0 +1,35 @@
+package com.cosmetics.ecommerce.repository;
+
+import com.cosmetics.ecommerce.model.ImageBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM ImageBlob b WHERE b.hash = :hash")
+    Optional<ImageBlob> findForUpdate(String hash);
+
+    // Insert only, unlike save(), which would merge into a row a concurrent upload just registered
+    @Modifying
+    @Transactional
+    @Query("INSERT INTO ImageBlob (hash, extension, size, width, height, createdAt, lastUploadedAt)"
+            + " VALUES (:hash, :extension, 0, 0, 0, :uploadedAt, :uploadedAt)")
+    int insertPlaceholder(String hash, String extension, Instant uploadedAt);
+
+    // Re-checks references and the last upload in the same statement, so a concurrent upload or product save wins
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ImageBlob b WHERE b.hash = :hash AND b.lastUploadedAt < :uploadedBefore"
+            + " AND NOT EXISTS (SELECT pi.id FROM ProductImage pi WHERE pi.blob.hash = :hash)")
+    int deleteUnreferenced(String hash, Instant uploadedBefore);
+}
@@ -1,30 +1,51 @@
 package com.cosmetics.ecommerce.repository;
 
 import com.cosmetics.ecommerce.model.OrderItem;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     
     List<OrderItem> findByOrderId(Long orderId);
     
+    @Query("SELECT COALESCE(SUM(oi.quantity), 0) FROM OrderItem oi")
+    long sumQuantities();
+    
+    @EntityGraph(attributePaths = {"product", "product.category"})
+    List<OrderItem> findByOrderIdIn(Collection<Long> orderIds);
+    
     @Query("SELECT oi.product.id, oi.product.name, SUM(oi.quantity), SUM(oi.subtotal) " +
            "FROM OrderItem oi " +
            "WHERE CAST(oi.order.orderDate AS date) BETWEEN :startDate AND :endDate " +
            "GROUP BY oi.product.id, oi.product.name " +
            "ORDER BY SUM(oi.subtotal) DESC")
-    List<Object[]> getTopSellingProducts(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    List<Object[]> getTopSellingProducts(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate,
+                                         Pageable pageable);
     
     @Query("SELECT oi.product.category.id, oi.product.category.name, SUM(oi.subtotal) " +
            "FROM OrderItem oi " +
            "WHERE CAST(oi.order.orderDate AS date) BETWEEN :startDate AND :endDate " +
            "GROUP BY oi.product.category.id, oi.product.category.name " +
            "ORDER BY SUM(oi.subtotal) DESC")
-    List<Object[]> getSalesByCategory(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    List<Object[]> getSalesByCategory(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate,
+                                      Pageable pageable);
+    
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT oi.product.id, oi.product.category.id, oi.order.orderDate, oi.quantity, oi.unitPrice, oi.subtotal " +
+           "FROM OrderItem oi")
+    Stream<Object[]> streamOrderLines();
 } 
\ No newline at end of file
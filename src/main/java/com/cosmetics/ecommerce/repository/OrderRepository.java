@@ -1,29 +1,58 @@
 package com.cosmetics.ecommerce.repository;
 
 import com.cosmetics.ecommerce.model.Order;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
     List<Order> findByUserId(Long userId);
     
+    // Order listings join the customer in; items are loaded for the whole page by OrderItemRepository
+    @EntityGraph(attributePaths = "user")
     Page<Order> findByUserId(Long userId, Pageable pageable);
     
+    @Override
+    @EntityGraph(attributePaths = "user")
+    Page<Order> findAll(Pageable pageable);
+    
+    @EntityGraph(attributePaths = "user")
     List<Order> findByStatus(Order.OrderStatus status);
     
     @Query("SELECT COALESCE(SUM(o.totalAmount), 0) FROM Order o WHERE CAST(o.orderDate AS date) BETWEEN :startDate AND :endDate")
     BigDecimal getTotalSalesBetweenDates(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
     
+    @Query("SELECT o.status, COUNT(o), COALESCE(SUM(o.totalAmount), 0) FROM Order o GROUP BY o.status")
+    List<Object[]> summarizeByStatus();
+    
     @Query("SELECT COUNT(o) FROM Order o WHERE CAST(o.orderDate AS date) BETWEEN :startDate AND :endDate")
     Long getTotalOrdersBetweenDates(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    @Query("SELECT o.user.id, COUNT(o), SUM(o.totalAmount), MIN(o.orderDate), MAX(o.orderDate) " +
+           "FROM Order o " +
+           "WHERE o.status <> :excludedStatus AND o.user.id BETWEEN :fromUserId AND :toUserId " +
+           "GROUP BY o.user.id")
+    List<Object[]> aggregateCustomerOrders(@Param("excludedStatus") Order.OrderStatus excludedStatus,
+                                           @Param("fromUserId") Long fromUserId,
+                                           @Param("toUserId") Long toUserId);
+    
+    // Rows arrive grouped by user so callers can partition the stream without buffering it
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT o.user.id, o.orderDate FROM Order o WHERE o.status <> :excludedStatus ORDER BY o.user.id")
+    Stream<Object[]> streamOrderDatesByUser(@Param("excludedStatus") Order.OrderStatus excludedStatus);
 } 
\ No newline at end of file
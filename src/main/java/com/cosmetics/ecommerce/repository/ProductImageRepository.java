@@ -0,0 +1,24 @@
+package com.cosmetics.ecommerce.repository;
+
+import com.cosmetics.ecommerce.model.ProductImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
+
+    Optional<ProductImage> findByProductId(Long productId);
+
+    @Query("SELECT DISTINCT pi.blob.hash FROM ProductImage pi WHERE pi.blob.hash IN :hashes")
+    List<String> findReferencedBlobHashes(Collection<String> hashes);
+
+    @Modifying
+    @Query("DELETE FROM ProductImage pi WHERE pi.product.id = :productId")
+    int deleteByProductId(Long productId);
+}
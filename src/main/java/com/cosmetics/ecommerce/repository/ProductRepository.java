@@ -3,7 +3,9 @@ package com.cosmetics.ecommerce.repository;
 import com.cosmetics.ecommerce.model.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,9 +13,21 @@ import java.util.List;
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     
+    // Catalog pages join the category in rather than loading each one separately
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Page<Product> findAll(Pageable pageable);
+    
+    @EntityGraph(attributePaths = "category")
     Page<Product> findByCategoryId(Long categoryId, Pageable pageable);
     
+    @EntityGraph(attributePaths = "category")
     Page<Product> findByNameContainingIgnoreCase(String keyword, Pageable pageable);
     
+    long countByCategoryId(Long categoryId);
+    
     List<Product> findByActive(boolean active);
+
+    @Query("SELECT p.imageUrl FROM Product p WHERE p.imageUrl LIKE '%/api/files/%'")
+    List<String> findFileImageUrls();
 } 
\ No newline at end of file
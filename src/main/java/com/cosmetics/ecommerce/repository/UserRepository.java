@@ -1,14 +1,20 @@
 package com.cosmetics.ecommerce.repository;
 
 import com.cosmetics.ecommerce.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     
+    // Roles are joined in so a login costs a single query
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByUsername(String username);
     
     Optional<User> findByEmail(String email);
@@ -16,4 +22,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Boolean existsByUsername(String username);
     
     Boolean existsByEmail(String email);
+    
+    @Query("SELECT MIN(u.id), MAX(u.id) FROM User u")
+    List<Object[]> findIdRange();
+    
+    // Row locks serializing writers of a customer's derived data, which may not have a row of its own yet
+    @Query(value = "SELECT id FROM users WHERE id = :userId FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("userId") Long userId);
+    
+    @Query(value = "SELECT id FROM users WHERE id BETWEEN :fromUserId AND :toUserId FOR UPDATE", nativeQuery = true)
+    List<Long> lockIdRange(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId);
 } 
\ No newline at end of file
@@ -0,0 +1,98 @@
+package com.cosmetics.ecommerce.security;
+
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Principal carrying everything request handling needs to know about the caller. It is
+ * loaded from the database once at login and afterwards rebuilt from the JWT claims, so
+ * resolving the current user never costs a query.
+ */
+public class AuthenticatedUser implements UserDetails, CredentialsContainer {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final String username;
+    private String password;
+    @SuppressWarnings("serial") // List.copyOf returns a serializable list
+    private final List<GrantedAuthority> authorities;
+    private final boolean active;
+
+    public AuthenticatedUser(Long id, String username, String password,
+                             Collection<? extends GrantedAuthority> authorities, boolean active) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.authorities = List.copyOf(authorities);
+        this.active = active;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public boolean hasRole(String role) {
+        return authorities.stream().anyMatch(authority -> authority.getAuthority().equals(role));
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public Collection<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return active;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        password = null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof AuthenticatedUser other && Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "AuthenticatedUser[id=" + id + ", username=" + username + ", authorities=" + authorities + "]";
+    }
+}
@@ -2,38 +2,129 @@ package com.cosmetics.ecommerce.security;
 
 import com.cosmetics.ecommerce.model.User;
 import com.cosmetics.ecommerce.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+/**
+ * Loads users for the authentication manager. Loaded users are remembered for the rest of
+ * the current request, so the authentication manager and the login response share one
+ * query, and for a short TTL across requests. UserService evicts entries whenever
+ * a user is changed or removed.
+ */
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
+    private static final String REQUEST_USERS_ATTRIBUTE = CustomUserDetailsService.class.getName() + ".users";
+
     private final UserRepository userRepository;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Map<String, CachedUser> cache = new ConcurrentHashMap<>();
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    @Value("${security.user-cache.ttl-seconds}") long ttlSeconds,
+                                    @Value("${security.user-cache.max-entries}") int maxEntries) {
         this.userRepository = userRepository;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+        User user = loadUser(username);
 
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getUsername())
-                .password(user.getPassword())
-                .authorities(user.getRoles().stream()
+        // A fresh principal every time: the authentication manager erases its credentials after login
+        return new AuthenticatedUser(
+                user.getId(),
+                user.getUsername(),
+                user.getPassword(),
+                user.getRoles().stream()
                         .map(role -> new SimpleGrantedAuthority(role.name()))
-                        .collect(Collectors.toList()))
-                .disabled(!user.isActive())
-                .accountExpired(false)
-                .accountLocked(false)
-                .credentialsExpired(false)
-                .build();
+                        .collect(Collectors.toList()),
+                user.isActive());
+    }
+
+    /**
+     * Returns the user, from this request's earlier lookups or the shared cache when possible.
+     * The returned entity is detached and shared, so callers must treat it as read-only.
+     */
+    public User loadUser(String username) {
+        Map<String, User> requestUsers = requestUsers();
+        if (requestUsers != null) {
+            User user = requestUsers.get(username);
+            if (user != null) {
+                return user;
+            }
+        }
+
+        long now = System.nanoTime();
+        CachedUser cached = cache.get(username);
+        User user;
+        if (cached != null && now - cached.loadedAt < ttlNanos) {
+            user = cached.user;
+        } else {
+            user = userRepository.findByUsername(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+            if (ttlNanos > 0) {
+                if (cache.size() >= maxEntries) {
+                    cache.values().removeIf(entry -> now - entry.loadedAt >= ttlNanos);
+                    if (cache.size() >= maxEntries) {
+                        cache.clear();
+                    }
+                }
+                cache.put(username, new CachedUser(user, now));
+            }
+        }
+
+        if (requestUsers != null) {
+            requestUsers.put(username, user);
+        }
+        return user;
+    }
+
+    public void evict(String username) {
+        cache.remove(username);
+        Map<String, User> requestUsers = requestUsers();
+        if (requestUsers != null) {
+            requestUsers.remove(username);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, User> requestUsers() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<String, User> users = (Map<String, User>) attributes.getAttribute(REQUEST_USERS_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+        if (users == null) {
+            users = new HashMap<>();
+            attributes.setAttribute(REQUEST_USERS_ATTRIBUTE, users, RequestAttributes.SCOPE_REQUEST);
+        }
+        return users;
+    }
+
+    private static final class CachedUser {
+        final User user;
+        final long loadedAt;
+
+        CachedUser(User user, long loadedAt) {
+            this.user = user;
+            this.loadedAt = loadedAt;
+        }
     }
-} 
\ No newline at end of file
+}
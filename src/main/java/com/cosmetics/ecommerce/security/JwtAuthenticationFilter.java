@@ -5,18 +5,28 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
 import org.springframework.util.StringUtils;
+import org.springframework.util.function.SingletonSupplier;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/**
+ * Installs a deferred security context for bearer tokens: the token is only verified the
+ * first time something asks for the authentication, so permitAll endpoints that never
+ * look at the principal skip the signature check entirely.
+ */
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtTokenProvider tokenProvider;
+    private final JwtTokenVerifier tokenVerifier;
+    private final SecurityContextHolderStrategy securityContextHolderStrategy =
+            SecurityContextHolder.getContextHolderStrategy();
 
-    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider) {
-        this.tokenProvider = tokenProvider;
+    public JwtAuthenticationFilter(JwtTokenVerifier tokenVerifier) {
+        this.tokenVerifier = tokenVerifier;
     }
 
     @Override
@@ -25,9 +35,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         String jwt = resolveToken(request);
         
-        if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-            Authentication authentication = tokenProvider.getAuthentication(jwt);
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+        if (StringUtils.hasText(jwt)) {
+            securityContextHolderStrategy.setDeferredContext(SingletonSupplier.of(() -> {
+                SecurityContext context = securityContextHolderStrategy.createEmptyContext();
+                Authentication authentication = tokenVerifier.verify(jwt);
+                if (authentication != null) {
+                    context.setAuthentication(authentication);
+                }
+                return context;
+            }));
         }
         
         filterChain.doFilter(request, response);
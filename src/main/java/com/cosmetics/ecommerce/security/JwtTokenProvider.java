@@ -1,74 +1,94 @@
 package com.cosmetics.ecommerce.security;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Arrays;
-import java.util.Base64;
 import java.util.Collection;
 import java.util.Date;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Component
 public class JwtTokenProvider {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    private final long jwtExpiration;
+    private final SigningKeyStore keyStore;
 
-    @Value("${jwt.expiration}")
-    private long jwtExpiration;
+    // Built once; the parser is immutable and safe to share between request threads
+    private final JwtParser jwtParser;
+
+    public JwtTokenProvider(SigningKeyStore keyStore,
+                            @Value("${jwt.expiration}") long jwtExpiration) {
+        this.keyStore = keyStore;
+        this.jwtExpiration = jwtExpiration;
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    // jjwt 0.11 declares the header raw; a JwsHeader<?> parameter would not override it
+                    @Override
+                    @SuppressWarnings("rawtypes")
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        // jjwt rejects the token if this key does not suit the header's alg, e.g. HS256
+                        Key key = keyStore.getVerificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new UnsupportedJwtException("Unknown signing key id: " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
 
     public String generateToken(Authentication authentication) {
-        String username = authentication.getName();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
         Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
         
-        Claims claims = Jwts.claims().setSubject(username);
+        Claims claims = Jwts.claims().setSubject(user.getUsername());
+        claims.put("uid", user.getId());
         claims.put("auth", authorities.stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.joining(",")));
+        claims.put("active", user.isEnabled());
 
         Date now = new Date();
         Date validity = new Date(now.getTime() + jwtExpiration);
 
+        SigningKeyStore.SigningKey signingKey = keyStore.getActiveKey();
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.getKid())
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(now)
                 .setExpiration(validity)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey.getPrivateKey(), SignatureAlgorithm.ES256)
                 .compact();
     }
 
-    public Authentication getAuthentication(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        String username = claims.getSubject();
-        String authoritiesString = claims.get("auth", String.class);
-
-        Collection<? extends GrantedAuthority> authorities = Arrays.stream(authoritiesString.split(","))
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
+    /**
+     * Verifies the signature and expiry and builds the authentication in a single parse.
+     *
+     * @throws JwtException if the token is malformed, tampered with or expired
+     */
+    public VerifiedToken verify(String token) {
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        Authentication authentication = toAuthentication(claims);
+        return new VerifiedToken(authentication, claims.getExpiration().getTime(), claims.getId(),
+                ((AuthenticatedUser) authentication.getPrincipal()).getId(), claims.getIssuedAt().getTime());
+    }
 
-        UserDetails userDetails = new User(username, "", authorities);
-        return new UsernamePasswordAuthenticationToken(userDetails, "", authorities);
+    public Authentication getAuthentication(String token) {
+        return verify(token).getAuthentication();
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token);
+            jwtParser.parseClaimsJws(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
@@ -76,18 +96,24 @@ public class JwtTokenProvider {
     }
 
     public String getUsernameFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return jwtParser.parseClaimsJws(token).getBody().getSubject();
     }
 
-    private Key getSigningKey() {
-        // Base64 encode the secret if it's not already encoded
-        String base64Secret = Base64.getEncoder().encodeToString(jwtSecret.getBytes());
-        byte[] keyBytes = Decoders.BASE64.decode(base64Secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private Authentication toAuthentication(Claims claims) {
+        Long userId = claims.get("uid", Long.class);
+        if (userId == null) {
+            throw new JwtException("Token does not carry a user id");
+        }
+        if (!Boolean.TRUE.equals(claims.get("active", Boolean.class))) {
+            throw new JwtException("Token was issued for an inactive account");
+        }
+        String authoritiesString = claims.get("auth", String.class);
+
+        Collection<? extends GrantedAuthority> authorities = Arrays.stream(authoritiesString.split(","))
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList());
+
+        AuthenticatedUser principal = new AuthenticatedUser(userId, claims.getSubject(), null, authorities, true);
+        return new UsernamePasswordAuthenticationToken(principal, "", authorities);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,105 @@
+package com.cosmetics.ecommerce.security;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves bearer tokens to authentications for the request filter. Recently verified
+ * tokens are remembered until they expire, so a client repeating the same token skips
+ * the signature check. The full token string is the cache key, which means a tampered
+ * token can never hit an entry stored for a genuine one. Revocation is checked on every
+ * call, cached or not. Verification time is recorded as {@code jwt.verification}, tagged by
+ * whether the token came from the cache.
+ */
+@Component
+public class JwtTokenVerifier {
+
+    private final JwtTokenProvider tokenProvider;
+    private final TokenDenyList denyList;
+    private final int maxCachedTokens;
+
+    private final Timer cachedTimer;
+    private final Timer verifiedTimer;
+
+    private final Map<String, VerifiedToken> cache = new ConcurrentHashMap<>();
+
+    public JwtTokenVerifier(JwtTokenProvider tokenProvider, TokenDenyList denyList,
+                            @Value("${jwt.cache.max-entries}") int maxCachedTokens, MeterRegistry registry) {
+        this.tokenProvider = tokenProvider;
+        this.denyList = denyList;
+        this.maxCachedTokens = maxCachedTokens;
+        this.cachedTimer = verificationTimer(registry, "hit");
+        this.verifiedTimer = verificationTimer(registry, "miss");
+    }
+
+    /**
+     * @return the authentication carried by the token, or {@code null} if it is invalid, expired or revoked
+     */
+    public Authentication verify(String token) {
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+
+        VerifiedToken cached = cache.get(token);
+        if (cached != null) {
+            try {
+                if (cached.getExpiresAt() > now) {
+                    return denyList.isRevoked(cached) ? null : cached.getAuthentication();
+                }
+                cache.remove(token, cached);
+                return null;
+            } finally {
+                cachedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        VerifiedToken verified;
+        try {
+            verified = tokenProvider.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        } finally {
+            verifiedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        if (maxCachedTokens > 0) {
+            if (cache.size() >= maxCachedTokens) {
+                evict(now);
+            }
+            cache.put(token, verified);
+        }
+        return denyList.isRevoked(verified) ? null : verified.getAuthentication();
+    }
+
+    public int getCachedTokenCount() {
+        return cache.size();
+    }
+
+    private static Timer verificationTimer(MeterRegistry registry, String cache) {
+        return Timer.builder("jwt.verification")
+                .description("Bearer token verification, including the signature check on a cache miss")
+                .tag("cache", cache)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private void evict(long now) {
+        cache.values().removeIf(entry -> entry.getExpiresAt() <= now);
+
+        // Still full of live tokens: drop an arbitrary tenth to make room
+        int target = maxCachedTokens - Math.max(1, maxCachedTokens / 10);
+        Iterator<String> keys = cache.keySet().iterator();
+        while (cache.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.cosmetics.ecommerce.security;
+
+import com.cosmetics.ecommerce.exception.GlobalExceptionHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies {@link RateLimiter} budgets: signed-in users are limited per account, everyone
+ * else per client address. Placed after {@link JwtAuthenticationFilter} so the deferred
+ * authentication is only resolved for route groups that are limited. On the public catalog
+ * chain, which has no JWT filter, a bearer token is verified here for limited routes
+ * (search) only.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final JwtTokenVerifier tokenVerifier;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(RateLimiter rateLimiter, JwtTokenVerifier tokenVerifier, ObjectMapper objectMapper) {
+        this.rateLimiter = rateLimiter;
+        this.tokenVerifier = tokenVerifier;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RateLimiter.Group group = rateLimiter.groupOf(request);
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long waitNanos = rateLimiter.acquire(group, clientKey(group, request));
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new GlobalExceptionHandler.ErrorResponse(
+                HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests, please slow down", LocalDateTime.now()));
+    }
+
+    private String clientKey(RateLimiter.Group group, HttpServletRequest request) {
+        // Credentials are what login brute force targets, so auth routes are always keyed by address
+        if (group != RateLimiter.Group.AUTH) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication == null) {
+                String bearer = request.getHeader(HttpHeaders.AUTHORIZATION);
+                if (bearer != null && bearer.startsWith("Bearer ")) {
+                    authentication = tokenVerifier.verify(bearer.substring(7));
+                }
+            }
+            if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+                return "user:" + user.getId();
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,162 @@
+package com.cosmetics.ecommerce.security;
+
+import com.cosmetics.ecommerce.dto.RateLimitStatsDto;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-client request budgets for the expensive route groups, configured as
+ * {@code rate-limit.<group>.requests-per-minute} and {@code rate-limit.<group>.burst}.
+ *
+ * <p>Each client's bucket is a single {@link AtomicLong} holding its theoretical arrival
+ * time (GCRA): a request is admitted by advancing it one emission interval with a CAS, so
+ * checks never lock. A bucket whose arrival time has passed is indistinguishable from a
+ * fresh one, which is what makes idle eviction safe.
+ */
+@Component
+public class RateLimiter {
+
+    private static final int STRIPES = 16;
+
+    public enum Group {
+        AUTH, SEARCH, CART, ADMIN;
+
+        static Group of(HttpServletRequest request) {
+            String path = request.getRequestURI().substring(request.getContextPath().length());
+            String method = request.getMethod();
+            if ("POST".equals(method) && (path.equals("/api/auth/login") || path.equals("/api/auth/register")
+                    || path.equals("/api/auth/refresh"))) {
+                return AUTH;
+            }
+            if (path.equals("/api/products/search")) {
+                return SEARCH;
+            }
+            if (path.startsWith("/api/cart") || path.startsWith("/api/orders")) {
+                return CART;
+            }
+            if (path.startsWith("/api/admin/")) {
+                return ADMIN;
+            }
+            return null;
+        }
+    }
+
+    private final boolean enabled;
+    private final Map<Group, Limit> limits = new EnumMap<>(Group.class);
+
+    public RateLimiter(Environment environment) {
+        this.enabled = environment.getProperty("rate-limit.enabled", Boolean.class, true);
+        for (Group group : Group.values()) {
+            String prefix = "rate-limit." + group.name().toLowerCase() + ".";
+            limits.put(group, new Limit(
+                    environment.getRequiredProperty(prefix + "requests-per-minute", Long.class),
+                    environment.getRequiredProperty(prefix + "burst", Long.class)));
+        }
+    }
+
+    /**
+     * @return the limited group the request belongs to, or {@code null} if it is not limited
+     */
+    public Group groupOf(HttpServletRequest request) {
+        return enabled ? Group.of(request) : null;
+    }
+
+    /**
+     * Takes one request from the client's budget.
+     *
+     * @return 0 if the request is admitted, otherwise the nanoseconds until it would be
+     */
+    public long acquire(Group group, String clientKey) {
+        return limits.get(group).acquire(clientKey, System.nanoTime());
+    }
+
+    public List<RateLimitStatsDto> getStats() {
+        List<RateLimitStatsDto> stats = new ArrayList<>();
+        for (Map.Entry<Group, Limit> entry : limits.entrySet()) {
+            Limit limit = entry.getValue();
+            stats.add(new RateLimitStatsDto(entry.getKey().name().toLowerCase(), limit.requestsPerMinute,
+                    limit.burst, limit.allowed.sum(), limit.throttled.sum(), limit.size()));
+        }
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval-ms}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Limit limit : limits.values()) {
+            limit.evictIdle(now);
+        }
+    }
+
+    private static final class Limit {
+        final long requestsPerMinute;
+        final long burst;
+        final long emissionIntervalNanos;
+        final long toleranceNanos;
+        final LongAdder allowed = new LongAdder();
+        final LongAdder throttled = new LongAdder();
+
+        // Striped so an eviction sweep only ever walks one small map at a time
+        final Map<String, AtomicLong>[] stripes = newStripes();
+
+        Limit(long requestsPerMinute, long burst) {
+            this.requestsPerMinute = requestsPerMinute;
+            this.burst = burst;
+            this.emissionIntervalNanos = TimeUnit.MINUTES.toNanos(1) / requestsPerMinute;
+            this.toleranceNanos = emissionIntervalNanos * burst;
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new ConcurrentHashMap<>();
+            }
+        }
+
+        long acquire(String clientKey, long now) {
+            AtomicLong arrival = stripes[Math.floorMod(clientKey.hashCode(), STRIPES)]
+                    .computeIfAbsent(clientKey, key -> new AtomicLong(now));
+            while (true) {
+                long current = arrival.get();
+                long next = Math.max(current, now) + emissionIntervalNanos;
+                long wait = next - now - toleranceNanos;
+                if (wait > 0) {
+                    throttled.increment();
+                    return wait;
+                }
+                if (arrival.compareAndSet(current, next)) {
+                    allowed.increment();
+                    return 0;
+                }
+            }
+        }
+
+        void evictIdle(long now) {
+            // A request racing with removal may update an orphaned bucket; at worst that client gets one extra burst
+            for (Map<String, AtomicLong> stripe : stripes) {
+                stripe.values().removeIf(arrival -> arrival.get() - now <= 0);
+            }
+        }
+
+        long size() {
+            long size = 0;
+            for (Map<String, AtomicLong> stripe : stripes) {
+                size += stripe.size();
+            }
+            return size;
+        }
+
+        // Wildcard rather than raw array creation, so the only unchecked step is this cast
+        @SuppressWarnings("unchecked")
+        private static Map<String, AtomicLong>[] newStripes() {
+            return (Map<String, AtomicLong>[]) new Map<?, ?>[STRIPES];
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.cosmetics.ecommerce.security;
+
+import java.util.function.Consumer;
+
+/**
+ * Transport that spreads revocations to the other nodes, e.g. a message broker topic.
+ * Without a channel bean revocations stay local, which is enough for a single node
+ * since the deny list is also reloaded from the database at startup.
+ */
+public interface RevocationChannel {
+
+    void publish(RevocationEvent event);
+
+    /**
+     * Registers the handler for revocations published by other nodes. Implementations
+     * should not echo a node's own events back to it, although doing so is harmless.
+     */
+    void subscribe(Consumer<RevocationEvent> handler);
+}
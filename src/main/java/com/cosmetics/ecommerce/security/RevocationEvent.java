@@ -0,0 +1,18 @@
+package com.cosmetics.ecommerce.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A revocation as exchanged between nodes. Exactly one of {@code tokenId} and
+ * {@code userId} is set; times are epoch millis.
+ */
+@Getter
+@AllArgsConstructor
+public class RevocationEvent {
+
+    private final String tokenId;
+    private final Long userId;
+    private final long issuedBefore;
+    private final long expiresAt;
+}
@@ -0,0 +1,302 @@
+package com.cosmetics.ecommerce.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.*;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ES256 key pairs used to sign access tokens, kept as one properties file per key in
+ * {@code jwt.keys.dir}. A new key is generated once the newest one is older than the
+ * rotation interval, but is only listed in the JWKS document for {@code jwt.keys.publish-lead-ms}
+ * before it starts signing, so verifiers holding a cached copy already know it. Keys that
+ * stopped signing stay available for verification until every token they signed has
+ * expired. Nodes sharing the directory pick up each other's keys.
+ */
+@Component
+public final class SigningKeyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SigningKeyStore.class);
+
+    private static final String KEY_FILE_SUFFIX = ".properties";
+    private static final long RESCAN_INTERVAL_MILLIS = 10_000;
+
+    private final Path directory;
+    private final long rotationIntervalMillis;
+    private final long overlapMillis;
+    private final long publishLeadMillis;
+
+    // Verification keys by kid
+    private final Map<String, SigningKey> keys = new ConcurrentHashMap<>();
+    private volatile SigningKey activeKey;
+    private volatile long lastScanMillis;
+
+    // Serializes scans and rotation; scans do file I/O on the request path, so not a monitor that would pin virtual threads
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public SigningKeyStore(@Value("${jwt.keys.dir}") String directory,
+                           @Value("${jwt.keys.rotation-interval-ms}") long rotationIntervalMillis,
+                           @Value("${jwt.expiration}") long tokenLifetimeMillis,
+                           @Value("${jwt.keys.publish-lead-ms}") long publishLeadMillis) {
+        this.directory = Paths.get(directory);
+        this.rotationIntervalMillis = rotationIntervalMillis;
+        // Allow for clock skew between the signing node and the verifying one
+        this.overlapMillis = tokenLifetimeMillis + 60_000;
+        this.publishLeadMillis = publishLeadMillis;
+        rotate();
+    }
+
+    public SigningKey getActiveKey() {
+        if (System.currentTimeMillis() - lastScanMillis > RESCAN_INTERVAL_MILLIS) {
+            // Promotes a published key once its lead has passed, including keys generated by another node
+            scan();
+        }
+        return activeKey;
+    }
+
+    /**
+     * @return the public key for {@code kid}, or {@code null} if no such key is known
+     */
+    public PublicKey getVerificationKey(String kid) {
+        if (kid == null) {
+            return null;
+        }
+        SigningKey key = keys.get(kid);
+        if (key == null && System.currentTimeMillis() - lastScanMillis > RESCAN_INTERVAL_MILLIS) {
+            // Possibly created moments ago by another node sharing the directory
+            scan();
+            key = keys.get(kid);
+        }
+        return key != null ? key.getPublicKey() : null;
+    }
+
+    /**
+     * Public keys in JSON Web Key Set form, for services that verify tokens on their own.
+     */
+    public Map<String, Object> getJwks() {
+        if (System.currentTimeMillis() - lastScanMillis > RESCAN_INTERVAL_MILLIS) {
+            scan();
+        }
+        List<Map<String, Object>> jwks = new ArrayList<>();
+        for (SigningKey key : sortedKeys()) {
+            ECPublicKey publicKey = (ECPublicKey) key.getPublicKey();
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-256");
+            jwk.put("use", "sig");
+            jwk.put("alg", "ES256");
+            jwk.put("kid", key.getKid());
+            jwk.put("x", base64Url(publicKey.getW().getAffineX()));
+            jwk.put("y", base64Url(publicKey.getW().getAffineY()));
+            jwks.add(jwk);
+        }
+        return Map.of("keys", jwks);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.keys.check-interval-ms}")
+    public void rotate() {
+        lock.lock();
+        try {
+            scan();
+            long now = System.currentTimeMillis();
+
+            List<SigningKey> sorted = sortedKeys();
+            SigningKey newest = sorted.isEmpty() ? null : sorted.get(sorted.size() - 1);
+            if (newest == null || now - newest.getCreatedAt() >= rotationIntervalMillis) {
+                newest = generate(now);
+                keys.put(newest.getKid(), newest);
+                activeKey = selectActive(now);
+                log.info("Generated JWT signing key {}, signing from {}", newest.getKid(),
+                        newest == activeKey ? "now" : new Date(newest.getCreatedAt() + publishLeadMillis));
+            }
+
+            for (SigningKey key : sortedKeys()) {
+                // A key stops signing when its successor is promoted and is needed until its last token expires
+                SigningKey successor = successorOf(key);
+                if (successor != null && now - successor.getCreatedAt() >= publishLeadMillis + overlapMillis) {
+                    keys.remove(key.getKid());
+                    try {
+                        Files.deleteIfExists(directory.resolve(key.getKid() + KEY_FILE_SUFFIX));
+                    } catch (IOException e) {
+                        log.warn("Could not delete retired JWT signing key {}", key.getKid(), e);
+                    }
+                    log.info("Retired JWT signing key {}", key.getKid());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void scan() {
+        lock.lock();
+        try {
+            lastScanMillis = System.currentTimeMillis();
+            if (!Files.isDirectory(directory)) {
+                return;
+            }
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + KEY_FILE_SUFFIX)) {
+                for (Path file : files) {
+                    String kid = file.getFileName().toString();
+                    kid = kid.substring(0, kid.length() - KEY_FILE_SUFFIX.length());
+                    if (!keys.containsKey(kid)) {
+                        try {
+                            keys.put(kid, read(kid, file));
+                        } catch (IOException e) {
+                            log.warn("Skipping unreadable JWT signing key file {}", file, e);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read JWT signing keys from " + directory, e);
+            }
+            activeKey = selectActive(lastScanMillis);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The newest key published for at least the lead; the only key there is on first start
+    private SigningKey selectActive(long now) {
+        List<SigningKey> sorted = sortedKeys();
+        if (sorted.isEmpty()) {
+            return null;
+        }
+        for (int i = sorted.size() - 1; i >= 0; i--) {
+            if (now - sorted.get(i).getCreatedAt() >= publishLeadMillis) {
+                return sorted.get(i);
+            }
+        }
+        return sorted.get(0);
+    }
+
+    private List<SigningKey> sortedKeys() {
+        List<SigningKey> sorted = new ArrayList<>(keys.values());
+        sorted.sort(Comparator.comparingLong(SigningKey::getCreatedAt).thenComparing(SigningKey::getKid));
+        return sorted;
+    }
+
+    private SigningKey successorOf(SigningKey key) {
+        SigningKey successor = null;
+        for (SigningKey candidate : keys.values()) {
+            if (candidate.getCreatedAt() > key.getCreatedAt()
+                    && (successor == null || candidate.getCreatedAt() < successor.getCreatedAt())) {
+                successor = candidate;
+            }
+        }
+        return successor;
+    }
+
+    private SigningKey generate(long now) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            KeyPair pair = generator.generateKeyPair();
+
+            byte[] thumbprint = MessageDigest.getInstance("SHA-256").digest(pair.getPublic().getEncoded());
+            String kid = Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(thumbprint, 12));
+            SigningKey key = new SigningKey(kid, now, pair.getPrivate(), pair.getPublic());
+
+            Properties properties = new Properties();
+            properties.setProperty("createdAt", Long.toString(now));
+            properties.setProperty("privateKey", Base64.getEncoder().encodeToString(pair.getPrivate().getEncoded()));
+            properties.setProperty("publicKey", Base64.getEncoder().encodeToString(pair.getPublic().getEncoded()));
+            write(kid, properties);
+            return key;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not generate JWT signing key", e);
+        }
+    }
+
+    private void write(String kid, Properties properties) {
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, kid, ".tmp");
+            try {
+                Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException e) {
+                // Not a POSIX file system; rely on the directory's permissions
+            }
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, "JWT signing key " + kid);
+            }
+            // Other nodes scanning the directory only ever see complete files
+            Files.move(temp, directory.resolve(kid + KEY_FILE_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store JWT signing key " + kid, e);
+        }
+    }
+
+    private SigningKey read(String kid, Path file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        try {
+            KeyFactory factory = KeyFactory.getInstance("EC");
+            PrivateKey privateKey = factory.generatePrivate(
+                    new PKCS8EncodedKeySpec(Base64.getDecoder().decode(properties.getProperty("privateKey"))));
+            PublicKey publicKey = factory.generatePublic(
+                    new X509EncodedKeySpec(Base64.getDecoder().decode(properties.getProperty("publicKey"))));
+            return new SigningKey(kid, Long.parseLong(properties.getProperty("createdAt")), privateKey, publicKey);
+        } catch (GeneralSecurityException | RuntimeException e) {
+            throw new IOException("Malformed JWT signing key file " + file, e);
+        }
+    }
+
+    // Unsigned big-endian coordinate padded to the 32 bytes of a P-256 field element
+    private static String base64Url(BigInteger coordinate) {
+        byte[] bytes = coordinate.toByteArray();
+        byte[] padded = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, padded, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+    }
+
+    public static final class SigningKey {
+        private final String kid;
+        private final long createdAt;
+        private final PrivateKey privateKey;
+        private final PublicKey publicKey;
+
+        SigningKey(String kid, long createdAt, PrivateKey privateKey, PublicKey publicKey) {
+            this.kid = kid;
+            this.createdAt = createdAt;
+            this.privateKey = privateKey;
+            this.publicKey = publicKey;
+        }
+
+        public String getKid() {
+            return kid;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public PrivateKey getPrivateKey() {
+            return privateKey;
+        }
+
+        public PublicKey getPublicKey() {
+            return publicKey;
+        }
+    }
+}
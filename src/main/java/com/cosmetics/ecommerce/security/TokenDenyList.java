@@ -0,0 +1,126 @@
+package com.cosmetics.ecommerce.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory view of revoked tokens consulted on every authenticated request. Almost no
+ * token is ever revoked, so a bloom filter answers "definitely not revoked" without
+ * touching the exact map; only filter hits are confirmed against it. Entries carry the
+ * expiry of the tokens they cover and are dropped by {@link #purgeExpired(long)}.
+ */
+@Component
+public class TokenDenyList {
+
+    private static final int HASHES = 5;
+
+    private final int bloomBits;
+
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<Long, UserCutoff> userCutoffs = new ConcurrentHashMap<>();
+
+    // Bloom filters cannot forget, so the filter is rebuilt from the exact map on purge
+    private volatile AtomicLongArray bloom;
+
+    public TokenDenyList(@Value("${security.revocation.bloom-bits}") int bloomBits) {
+        this.bloomBits = bloomBits;
+        this.bloom = new AtomicLongArray((bloomBits + 63) / 64);
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        if (!userCutoffs.isEmpty() && token.getUserId() != null) {
+            UserCutoff cutoff = userCutoffs.get(token.getUserId());
+            if (cutoff != null && token.getIssuedAt() <= cutoff.issuedBefore) {
+                return true;
+            }
+        }
+        String tokenId = token.getTokenId();
+        return tokenId != null && mightContain(bloom, tokenId) && revokedTokens.containsKey(tokenId);
+    }
+
+    public void apply(RevocationEvent event) {
+        if (event.getTokenId() != null) {
+            revokedTokens.put(event.getTokenId(), event.getExpiresAt());
+            add(bloom, event.getTokenId());
+        } else {
+            userCutoffs.merge(event.getUserId(), new UserCutoff(event.getIssuedBefore(), event.getExpiresAt()),
+                    (existing, added) -> existing.issuedBefore >= added.issuedBefore ? existing : added);
+        }
+    }
+
+    public void purgeExpired(long now) {
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        userCutoffs.values().removeIf(cutoff -> cutoff.expiresAt <= now);
+
+        AtomicLongArray rebuilt = new AtomicLongArray(bloom.length());
+        for (String tokenId : revokedTokens.keySet()) {
+            add(rebuilt, tokenId);
+        }
+        bloom = rebuilt;
+        // Revocations that raced with the rebuild went into the old filter only
+        for (String tokenId : revokedTokens.keySet()) {
+            add(rebuilt, tokenId);
+        }
+    }
+
+    public int getRevokedTokenCount() {
+        return revokedTokens.size();
+    }
+
+    public int getRevokedUserCount() {
+        return userCutoffs.size();
+    }
+
+    private void add(AtomicLongArray bits, String tokenId) {
+        long hash = hash(tokenId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bloomBits);
+            int word = bit >>> 6;
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    private boolean mightContain(AtomicLongArray bits, String tokenId) {
+        long hash = hash(tokenId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bloomBits);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 64-bit FNV-1a; the two halves seed the double hashing above
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static final class UserCutoff {
+        final long issuedBefore;
+        final long expiresAt;
+
+        UserCutoff(long issuedBefore, long expiresAt) {
+            this.issuedBefore = issuedBefore;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
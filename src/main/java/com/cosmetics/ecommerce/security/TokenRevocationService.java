@@ -0,0 +1,94 @@
+package com.cosmetics.ecommerce.security;
+
+import com.cosmetics.ecommerce.model.RevokedToken;
+import com.cosmetics.ecommerce.repository.RevokedTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+
+/**
+ * Revokes tokens before they expire. Revocations are applied to the local deny list,
+ * stored so they survive restarts and published to the other nodes when a
+ * {@link RevocationChannel} is configured.
+ */
+@Service
+public class TokenRevocationService implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final TokenDenyList denyList;
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final RevocationChannel channel;
+    private final long maxTokenLifetimeMillis;
+
+    public TokenRevocationService(TokenDenyList denyList,
+                                  RevokedTokenRepository revokedTokenRepository,
+                                  ObjectProvider<RevocationChannel> channel,
+                                  @Value("${jwt.expiration}") long maxTokenLifetimeMillis) {
+        this.denyList = denyList;
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.channel = channel.getIfAvailable();
+        this.maxTokenLifetimeMillis = maxTokenLifetimeMillis;
+        if (this.channel != null) {
+            this.channel.subscribe(denyList::apply);
+        }
+    }
+
+    public void revokeToken(VerifiedToken token) {
+        if (token.getTokenId() == null) {
+            // Issued before tokens carried an id; only a per-user revocation can reach it
+            revokeUser(token.getUserId());
+            return;
+        }
+        revokedTokenRepository.save(new RevokedToken(null, token.getTokenId(), null, null,
+                Instant.ofEpochMilli(token.getExpiresAt())));
+        publish(new RevocationEvent(token.getTokenId(), null, 0, token.getExpiresAt()));
+    }
+
+    /**
+     * Revokes every token issued to the user so far, e.g. when the account is deleted.
+     */
+    public void revokeUser(Long userId) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now + maxTokenLifetimeMillis;
+        revokedTokenRepository.save(new RevokedToken(null, null, userId, Instant.ofEpochMilli(now),
+                Instant.ofEpochMilli(expiresAt)));
+        publish(new RevocationEvent(null, userId, now, expiresAt));
+    }
+
+    /**
+     * Loads the stored revocations before the connectors start, so no revoked token is accepted
+     * in the first moments after a restart.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        int loaded = 0;
+        for (RevokedToken row : revokedTokenRepository.findByExpiresAtAfter(Instant.now())) {
+            denyList.apply(new RevocationEvent(row.getTokenId(), row.getUserId(),
+                    row.getIssuedBefore() != null ? row.getIssuedBefore().toEpochMilli() : 0,
+                    row.getExpiresAt().toEpochMilli()));
+            loaded++;
+        }
+        log.info("Loaded {} active token revocations", loaded);
+    }
+
+    @Scheduled(fixedDelayString = "${security.revocation.purge-interval-ms}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        denyList.purgeExpired(now);
+        revokedTokenRepository.deleteExpired(Instant.ofEpochMilli(now));
+    }
+
+    private void publish(RevocationEvent event) {
+        denyList.apply(event);
+        if (channel != null) {
+            channel.publish(event);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.cosmetics.ecommerce.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Result of a successful signature check: the authentication built from the claims
+ * and the instant (epoch millis) after which the token must no longer be accepted.
+ */
+@Getter
+@AllArgsConstructor
+public class VerifiedToken {
+
+    private final Authentication authentication;
+    private final long expiresAt;
+
+    // jti; null for tokens issued before ids were added
+    private final String tokenId;
+    private final Long userId;
+    private final long issuedAt;
+}
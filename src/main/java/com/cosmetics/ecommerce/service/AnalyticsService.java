@@ -1,19 +1,39 @@
 package com.cosmetics.ecommerce.service;
 
+import com.cosmetics.ecommerce.analytics.OrderLineQuery;
+import com.cosmetics.ecommerce.analytics.OrderLineQueryResult;
+import com.cosmetics.ecommerce.analytics.OrderLineStore;
+import com.cosmetics.ecommerce.dto.AnalyticsQueryDto;
 import com.cosmetics.ecommerce.dto.SalesAnalyticsDto;
+import com.cosmetics.ecommerce.event.OrderPlacedEvent;
+import com.cosmetics.ecommerce.model.Product;
+import com.cosmetics.ecommerce.repository.OffsetPageRequest;
 import com.cosmetics.ecommerce.repository.OrderRepository;
 import com.cosmetics.ecommerce.repository.OrderItemRepository;
+import com.cosmetics.ecommerce.repository.ProductRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-public class AnalyticsService {
+public class AnalyticsService implements SmartInitializingSingleton {
 
     @Autowired
     private OrderRepository orderRepository;
@@ -21,7 +41,19 @@ public class AnalyticsService {
     @Autowired
     private OrderItemRepository orderItemRepository;
 
-    public SalesAnalyticsDto getSalesAnalytics(LocalDate startDate, LocalDate endDate) {
+    @Autowired
+    private OrderLineStore orderLineStore;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Timed(value = "analytics.sales", histogram = true)
+    public SalesAnalyticsDto getSalesAnalytics(LocalDate startDate, LocalDate endDate, int limit, int offset) {
+        OffsetPageRequest window = new OffsetPageRequest(offset, limit);
+
         try {
             // Get total sales and order count
             BigDecimal totalSales = orderRepository.getTotalSalesBetweenDates(startDate, endDate);
@@ -39,7 +71,7 @@ public class AnalyticsService {
             // Get top selling products
             List<SalesAnalyticsDto.TopProductDto> topSellingProducts;
             try {
-                List<Object[]> topProductsData = orderItemRepository.getTopSellingProducts(startDate, endDate);
+                List<Object[]> topProductsData = orderItemRepository.getTopSellingProducts(startDate, endDate, window);
                 topSellingProducts = topProductsData.stream()
                     .map(row -> new SalesAnalyticsDto.TopProductDto(
                         ((Number) row[0]).longValue(),     // productId
@@ -55,7 +87,7 @@ public class AnalyticsService {
             // Get sales by category
             List<SalesAnalyticsDto.CategorySalesDto> salesByCategory;
             try {
-                List<Object[]> categoryData = orderItemRepository.getSalesByCategory(startDate, endDate);
+                List<Object[]> categoryData = orderItemRepository.getSalesByCategory(startDate, endDate, window);
                 salesByCategory = categoryData.stream()
                     .map(row -> new SalesAnalyticsDto.CategorySalesDto(
                         ((Number) row[0]).longValue(),     // categoryId
@@ -76,10 +108,126 @@ public class AnalyticsService {
         }
     }
 
-    public SalesAnalyticsDto getSalesAnalytics() {
+    @Timed(value = "analytics.sales", histogram = true)
+    public SalesAnalyticsDto getSalesAnalytics(int limit, int offset) {
         // Default to last 30 days if no date range specified
         LocalDate endDate = LocalDate.now();
         LocalDate startDate = endDate.minusDays(30);
-        return getSalesAnalytics(startDate, endDate);
+        return getSalesAnalytics(startDate, endDate, limit, offset);
+    }
+
+    // Served from the in-memory order line store. Each parallel slice accumulates into arrays sized by the largest
+    // product id (a hash map past 65536 cells), so memory follows the catalog; only the top-N heap is bounded by limit
+    public List<SalesAnalyticsDto.TopProductDto> getLiveTopProducts(LocalDate startDate, LocalDate endDate, int limit) {
+        OrderLineQuery query = new OrderLineQuery();
+        query.setGroupBy(List.of(OrderLineQuery.Dimension.PRODUCT));
+        query.setFromDay(Math.toIntExact(startDate.toEpochDay()));
+        query.setToDay(Math.toIntExact(endDate.toEpochDay()));
+        query.setLimit(limit);
+
+        List<OrderLineQueryResult.Group> groups = orderLineStore.query(query).getGroups();
+        List<Long> productIds = groups.stream().map(group -> group.getKeys()[0]).collect(Collectors.toList());
+        Map<Long, String> names = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Product::getName));
+
+        return groups.stream()
+                .map(group -> new SalesAnalyticsDto.TopProductDto(
+                        group.getKeys()[0],
+                        names.get(group.getKeys()[0]),
+                        group.getUnitsSold(),
+                        BigDecimal.valueOf(group.getRevenueCents(), 2)))
+                .collect(Collectors.toList());
+    }
+
+    public AnalyticsQueryDto queryOrderLines(String groupBy, LocalDate startDate, LocalDate endDate,
+                                             Long categoryId, Long productId,
+                                             BigDecimal minPrice, BigDecimal maxPrice, int limit) {
+        OrderLineQuery query = new OrderLineQuery();
+        query.setGroupBy(parseDimensions(groupBy));
+        query.setFromDay(startDate != null ? Math.toIntExact(startDate.toEpochDay()) : null);
+        query.setToDay(endDate != null ? Math.toIntExact(endDate.toEpochDay()) : null);
+        query.setCategoryId(categoryId);
+        query.setProductId(productId);
+        query.setMinUnitPriceCents(minPrice != null ? OrderLineStore.toCents(minPrice) : null);
+        query.setMaxUnitPriceCents(maxPrice != null ? OrderLineStore.toCents(maxPrice) : null);
+        query.setLimit(limit);
+
+        long started = System.nanoTime();
+        OrderLineQueryResult result = orderLineStore.query(query);
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        List<AnalyticsQueryDto.GroupDto> groups = result.getGroups().stream()
+                .map(group -> new AnalyticsQueryDto.GroupDto(
+                        describeKey(query.getGroupBy(), group.getKeys()),
+                        group.getOrderLines(),
+                        group.getUnitsSold(),
+                        BigDecimal.valueOf(group.getRevenueCents(), 2)))
+                .collect(Collectors.toList());
+
+        List<String> dimensions = query.getGroupBy().stream().map(Enum::name).collect(Collectors.toList());
+        return new AnalyticsQueryDto(dimensions, result.getRowsScanned(), result.getRowsMatched(),
+                elapsedMillis, groups);
+    }
+
+    @TransactionalEventListener
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        LocalDate orderDay = event.getOrderDate().toLocalDate();
+        for (OrderPlacedEvent.Line line : event.getLines()) {
+            orderLineStore.append(line.getProductId(), line.getCategoryId(), orderDay,
+                    line.getQuantity(), line.getUnitPrice(), line.getSubtotal());
+        }
+    }
+
+    /**
+     * Loads historical order lines once at startup. This runs before the connectors start, so no
+     * order can be committed meanwhile: every order afterwards arrives through onOrderPlaced and
+     * none is counted twice.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        transactionTemplate.executeWithoutResult(status -> loadOrderLineStore());
+    }
+
+    private void loadOrderLineStore() {
+        try (Stream<Object[]> rows = orderItemRepository.streamOrderLines()) {
+            rows.forEach(row -> orderLineStore.append(
+                    ((Number) row[0]).longValue(),          // productId
+                    ((Number) row[1]).longValue(),          // categoryId
+                    ((LocalDateTime) row[2]).toLocalDate(), // orderDate
+                    ((Number) row[3]).intValue(),           // quantity
+                    (BigDecimal) row[4],                    // unitPrice
+                    (BigDecimal) row[5]                     // subtotal
+            ));
+        }
+    }
+
+    private List<OrderLineQuery.Dimension> parseDimensions(String groupBy) {
+        List<OrderLineQuery.Dimension> dimensions = new ArrayList<>();
+        if (groupBy == null || groupBy.isBlank()) {
+            return dimensions;
+        }
+        for (String name : groupBy.split(",")) {
+            try {
+                dimensions.add(OrderLineQuery.Dimension.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown groupBy dimension: " + name.trim());
+            }
+        }
+        return dimensions;
+    }
+
+    private Map<String, Object> describeKey(List<OrderLineQuery.Dimension> dimensions, long[] keys) {
+        Map<String, Object> key = new LinkedHashMap<>();
+        for (int i = 0; i < dimensions.size(); i++) {
+            long value = keys[i];
+            switch (dimensions.get(i)) {
+                case PRODUCT -> key.put("productId", value);
+                case CATEGORY -> key.put("categoryId", value);
+                case WEEKDAY -> key.put("weekday", DayOfWeek.of((int) value).name());
+                case DAY -> key.put("day", LocalDate.ofEpochDay(value).toString());
+                case MONTH -> key.put("month", YearMonth.of((int) (value / 12), (int) (value % 12) + 1).toString());
+            }
+        }
+        return key;
     }
 }
\ No newline at end of file
@@ -4,18 +4,26 @@ import com.cosmetics.ecommerce.dto.AuthRequest;
 import com.cosmetics.ecommerce.dto.AuthResponse;
 import com.cosmetics.ecommerce.dto.RegisterRequest;
 import com.cosmetics.ecommerce.dto.UserDto;
+import com.cosmetics.ecommerce.exception.InvalidRefreshTokenException;
 import com.cosmetics.ecommerce.model.User;
 import com.cosmetics.ecommerce.repository.UserRepository;
+import com.cosmetics.ecommerce.security.AuthenticatedUser;
+import com.cosmetics.ecommerce.security.CustomUserDetailsService;
 import com.cosmetics.ecommerce.security.JwtTokenProvider;
+import com.cosmetics.ecommerce.security.TokenRevocationService;
+import io.jsonwebtoken.JwtException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class AuthenticationService {
@@ -24,15 +32,24 @@ public class AuthenticationService {
     private final JwtTokenProvider tokenProvider;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
+    private final RefreshTokenService refreshTokenService;
 
     public AuthenticationService(AuthenticationManager authenticationManager,
                                 JwtTokenProvider tokenProvider,
                                 UserRepository userRepository,
-                                PasswordEncoder passwordEncoder) {
+                                PasswordEncoder passwordEncoder,
+                                CustomUserDetailsService userDetailsService,
+                                TokenRevocationService tokenRevocationService,
+                                RefreshTokenService refreshTokenService) {
         this.authenticationManager = authenticationManager;
         this.tokenProvider = tokenProvider;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userDetailsService = userDetailsService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.refreshTokenService = refreshTokenService;
     }
 
     public AuthResponse login(AuthRequest loginRequest) {
@@ -46,10 +63,32 @@ public class AuthenticationService {
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String jwt = tokenProvider.generateToken(authentication);
         
-        User user = userRepository.findByUsername(loginRequest.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        // Already loaded by the authentication manager during this request
+        User user = userDetailsService.loadUser(loginRequest.getUsername());
         
-        return new AuthResponse(jwt, convertToDto(user));
+        return new AuthResponse(jwt, refreshTokenService.issue(user.getId()), convertToDto(user));
+    }
+
+    public AuthResponse refresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        User user = userRepository.findById(rotation.getUserId())
+                .filter(User::isActive)
+                .orElseThrow(() -> new InvalidRefreshTokenException("Account is no longer active"));
+
+        return new AuthResponse(generateToken(user), rotation.getRefreshToken(), convertToDto(user));
+    }
+
+    public void logout(String accessToken, String refreshToken) {
+        if (accessToken != null) {
+            try {
+                tokenRevocationService.revokeToken(tokenProvider.verify(accessToken));
+            } catch (JwtException | IllegalArgumentException e) {
+                // Nothing to revoke: the token is already unusable
+            }
+        }
+        if (refreshToken != null) {
+            refreshTokenService.revoke(refreshToken);
+        }
     }
 
     public AuthResponse register(RegisterRequest registerRequest) {
@@ -75,13 +114,20 @@ public class AuthenticationService {
         
         user.setActive(true);
         
-        userRepository.save(user);
+        User savedUser = userRepository.save(user);
 
-        AuthRequest loginRequest = new AuthRequest();
-        loginRequest.setUsername(registerRequest.getUsername());
-        loginRequest.setPassword(registerRequest.getPassword());
-        
-        return login(loginRequest);
+        // The password was hashed a moment ago; signing the new account in directly avoids a second BCrypt round
+        return new AuthResponse(generateToken(savedUser), refreshTokenService.issue(savedUser.getId()),
+                convertToDto(savedUser));
+    }
+
+    private String generateToken(User user) {
+        List<SimpleGrantedAuthority> authorities = user.getRoles().stream()
+                .map(role -> new SimpleGrantedAuthority(role.name()))
+                .collect(Collectors.toList());
+        AuthenticatedUser principal = new AuthenticatedUser(user.getId(), user.getUsername(), null,
+                authorities, user.isActive());
+        return tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(principal, null, authorities));
     }
     
     private UserDto convertToDto(User user) {
@@ -11,6 +11,7 @@ import com.cosmetics.ecommerce.repository.CartItemRepository;
 import com.cosmetics.ecommerce.repository.CartRepository;
 import com.cosmetics.ecommerce.repository.ProductRepository;
 import com.cosmetics.ecommerce.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -46,6 +47,7 @@ public class CartService {
     }
 
     @Transactional
+    @Timed(value = "cart.add-item", histogram = true)
     public CartDto addItemToCart(Long userId, Long productId, Integer quantity) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
@@ -4,6 +4,7 @@ import com.cosmetics.ecommerce.dto.CategoryDto;
 import com.cosmetics.ecommerce.exception.ResourceNotFoundException;
 import com.cosmetics.ecommerce.model.Category;
 import com.cosmetics.ecommerce.repository.CategoryRepository;
+import com.cosmetics.ecommerce.repository.ProductRepository;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -13,21 +14,23 @@ import java.util.stream.Collectors;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
 
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository, ProductRepository productRepository) {
         this.categoryRepository = categoryRepository;
+        this.productRepository = productRepository;
     }
 
     public List<CategoryDto> getAllCategories() {
-        return categoryRepository.findAll().stream()
-                .map(this::convertToDto)
+        return categoryRepository.findAllWithProductCounts().stream()
+                .map(row -> convertToDto((Category) row[0], (Long) row[1]))
                 .collect(Collectors.toList());
     }
 
     public CategoryDto getCategoryById(Long id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
-        return convertToDto(category);
+        return convertToDto(category, productRepository.countByCategoryId(id));
     }
 
     public CategoryDto createCategory(CategoryDto categoryDto) {
@@ -36,7 +39,7 @@ public class CategoryService {
         category.setDescription(categoryDto.getDescription());
         
         Category savedCategory = categoryRepository.save(category);
-        return convertToDto(savedCategory);
+        return convertToDto(savedCategory, 0);
     }
 
     public CategoryDto updateCategory(Long id, CategoryDto categoryDto) {
@@ -47,7 +50,7 @@ public class CategoryService {
         category.setDescription(categoryDto.getDescription());
         
         Category updatedCategory = categoryRepository.save(category);
-        return convertToDto(updatedCategory);
+        return convertToDto(updatedCategory, productRepository.countByCategoryId(id));
     }
 
     public void deleteCategory(Long id) {
@@ -56,15 +59,12 @@ public class CategoryService {
         categoryRepository.delete(category);
     }
     
-    private CategoryDto convertToDto(Category category) {
+    private CategoryDto convertToDto(Category category, long productCount) {
         CategoryDto categoryDto = new CategoryDto();
         categoryDto.setId(category.getId());
         categoryDto.setName(category.getName());
         categoryDto.setDescription(category.getDescription());
-        
-        // Count the number of products in this category
-        int productCount = category.getProducts() != null ? category.getProducts().size() : 0;
-        categoryDto.setProductCount(productCount);
+        categoryDto.setProductCount((int) productCount);
         
         return categoryDto;
     }
@@ -0,0 +1,242 @@
+package com.cosmetics.ecommerce.service;
+
+import com.cosmetics.ecommerce.analytics.CohortMatrix;
+import com.cosmetics.ecommerce.dto.CohortDto;
+import com.cosmetics.ecommerce.dto.CohortJobStatusDto;
+import com.cosmetics.ecommerce.model.CohortRetention;
+import com.cosmetics.ecommerce.model.Order;
+import com.cosmetics.ecommerce.repository.CohortRetentionRepository;
+import com.cosmetics.ecommerce.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Batch job computing monthly cohort retention: of the customers whose first order fell
+ * in month M, how many ordered again in month M + k. Orders are read through a streaming
+ * cursor grouped by user, counted with fork-join parallelism and persisted to
+ * cohort_retention, replacing the previous run.
+ */
+@Service
+public class CohortAnalysisService {
+
+    private static final Logger log = LoggerFactory.getLogger(CohortAnalysisService.class);
+
+    private static final int PROGRESS_INTERVAL = 10_000;
+
+    private final OrderRepository orderRepository;
+    private final CohortRetentionRepository cohortRetentionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Progress of the current or most recent run, written by the job thread only
+    private volatile String state = "IDLE";
+    private volatile String phase;
+    private volatile long ordersRead;
+    private volatile long customersProcessed;
+    private volatile int cohorts;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    public CohortAnalysisService(OrderRepository orderRepository,
+                                 CohortRetentionRepository cohortRetentionRepository,
+                                 TransactionTemplate transactionTemplate) {
+        this.orderRepository = orderRepository;
+        this.cohortRetentionRepository = cohortRetentionRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        state = "RUNNING";
+        phase = "READING";
+        ordersRead = 0;
+        customersProcessed = 0;
+        cohorts = 0;
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        error = null;
+
+        Thread job = new Thread(this::run, "cohort-analysis");
+        job.setDaemon(true);
+        job.start();
+        return true;
+    }
+
+    public CohortJobStatusDto getStatus() {
+        return new CohortJobStatusDto(state, phase, ordersRead, customersProcessed, cohorts,
+                startedAt, finishedAt, error);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CohortDto> getCohorts() {
+        Map<LocalDate, CohortDto> byMonth = new LinkedHashMap<>();
+        for (CohortRetention row : cohortRetentionRepository.findAllByOrderByCohortMonthAscMonthOffsetAsc()) {
+            CohortDto cohort = byMonth.computeIfAbsent(row.getCohortMonth(), month -> new CohortDto(
+                    month.toString().substring(0, 7), row.getCohortSize(), row.getComputedAt(), new ArrayList<>()));
+            cohort.getRetention().add(new CohortDto.RetentionDto(
+                    row.getMonthOffset(), row.getActiveCustomers(), row.getRetentionRate()));
+        }
+        return new ArrayList<>(byMonth.values());
+    }
+
+    private void run() {
+        try {
+            CustomerMonths customerMonths = transactionTemplate.execute(status -> readCustomerMonths());
+
+            phase = "COMPUTING";
+            CohortMatrix matrix = customerMonths.toMatrix();
+
+            phase = "PERSISTING";
+            transactionTemplate.executeWithoutResult(status -> persist(matrix));
+
+            state = "COMPLETED";
+        } catch (RuntimeException e) {
+            log.error("Cohort analysis failed", e);
+            error = e.getMessage();
+            state = "FAILED";
+        } finally {
+            phase = null;
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+    }
+
+    private CustomerMonths readCustomerMonths() {
+        CustomerMonths customerMonths = new CustomerMonths();
+        try (Stream<Object[]> rows = orderRepository.streamOrderDatesByUser(Order.OrderStatus.CANCELLED)) {
+            rows.forEach(row -> {
+                LocalDateTime orderDate = (LocalDateTime) row[1];
+                customerMonths.accept(((Number) row[0]).longValue(),
+                        orderDate.getYear() * 12 + orderDate.getMonthValue() - 1);
+                long read = ++ordersRead;
+                if (read % PROGRESS_INTERVAL == 0) {
+                    customersProcessed = customerMonths.customers;
+                }
+            });
+        }
+        customerMonths.finish();
+        customersProcessed = customerMonths.customers;
+        return customerMonths;
+    }
+
+    private void persist(CohortMatrix matrix) {
+        cohortRetentionRepository.deleteAllInBatch();
+
+        LocalDateTime computedAt = LocalDateTime.now();
+        List<CohortRetention> rows = new ArrayList<>();
+        int populated = 0;
+        for (int cohort = 0; cohort < matrix.getCohortCount(); cohort++) {
+            long size = matrix.getCohortSize(cohort);
+            if (size == 0) {
+                continue;
+            }
+            populated++;
+            int month = matrix.getFirstMonth() + cohort;
+            LocalDate cohortMonth = LocalDate.of(month / 12, month % 12 + 1, 1);
+            for (int offset = 0; offset < matrix.getOffsetCount(cohort); offset++) {
+                long active = matrix.getActiveCustomers(cohort, offset);
+                BigDecimal rate = BigDecimal.valueOf(active).divide(BigDecimal.valueOf(size), 4, RoundingMode.HALF_UP);
+                rows.add(new CohortRetention(null, cohortMonth, offset, size, active, rate, computedAt));
+            }
+        }
+        cohortRetentionRepository.saveAll(rows);
+        cohorts = populated;
+    }
+
+    /**
+     * Compressed per-customer activity built while the cursor is read. Only the months of
+     * the customer currently being read are buffered.
+     */
+    private static final class CustomerMonths {
+        int customers;
+        int[] cohortOf = new int[1024];
+        int[] offsetStart = new int[1025];
+        int[] offsets = new int[4096];
+        int offsetCount;
+        int firstMonth = Integer.MAX_VALUE;
+        int lastMonth = Integer.MIN_VALUE;
+        int maxOffset;
+
+        private long currentUser = -1;
+        private int[] currentMonths = new int[16];
+        private int currentCount;
+
+        void accept(long userId, int month) {
+            if (userId != currentUser) {
+                finish();
+                currentUser = userId;
+            }
+            if (currentCount == currentMonths.length) {
+                currentMonths = Arrays.copyOf(currentMonths, currentCount * 2);
+            }
+            currentMonths[currentCount++] = month;
+        }
+
+        void finish() {
+            if (currentCount == 0) {
+                return;
+            }
+            Arrays.sort(currentMonths, 0, currentCount);
+            int cohortMonth = currentMonths[0];
+
+            if (customers == cohortOf.length) {
+                cohortOf = Arrays.copyOf(cohortOf, customers * 2);
+                offsetStart = Arrays.copyOf(offsetStart, customers * 2 + 1);
+            }
+            // Cohorts are stored as absolute months until the overall first month is known
+            cohortOf[customers] = cohortMonth;
+            offsetStart[customers] = offsetCount;
+
+            int previous = Integer.MIN_VALUE;
+            for (int i = 0; i < currentCount; i++) {
+                int month = currentMonths[i];
+                if (month == previous) {
+                    continue;
+                }
+                previous = month;
+                if (offsetCount == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsetCount * 2);
+                }
+                offsets[offsetCount++] = month - cohortMonth;
+            }
+
+            firstMonth = Math.min(firstMonth, cohortMonth);
+            lastMonth = Math.max(lastMonth, previous);
+            maxOffset = Math.max(maxOffset, previous - cohortMonth);
+            customers++;
+            offsetStart[customers] = offsetCount;
+            currentCount = 0;
+        }
+
+        CohortMatrix toMatrix() {
+            if (customers == 0) {
+                return CohortMatrix.compute(new int[0], new int[1], new int[0], 0, 0, 0, 0, ForkJoinPool.commonPool());
+            }
+            for (int i = 0; i < customers; i++) {
+                cohortOf[i] -= firstMonth;
+            }
+            return CohortMatrix.compute(cohortOf, offsetStart, offsets, customers,
+                    firstMonth, lastMonth - firstMonth + 1, maxOffset, ForkJoinPool.commonPool());
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.cosmetics.ecommerce.service;
+
+import com.cosmetics.ecommerce.dto.CustomerStatsDto;
+import com.cosmetics.ecommerce.exception.ResourceNotFoundException;
+import com.cosmetics.ecommerce.model.CustomerStats;
+import com.cosmetics.ecommerce.model.Order;
+import com.cosmetics.ecommerce.repository.CustomerStatsRepository;
+import com.cosmetics.ecommerce.repository.OrderRepository;
+import com.cosmetics.ecommerce.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class CustomerStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerStatsService.class);
+
+    private final CustomerStatsRepository customerStatsRepository;
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int backfillChunkSize;
+    private final int backfillParallelism;
+
+    private final AtomicBoolean backfillRunning = new AtomicBoolean();
+
+    public CustomerStatsService(CustomerStatsRepository customerStatsRepository,
+                                OrderRepository orderRepository,
+                                UserRepository userRepository,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${customer-stats.backfill.chunk-size}") int backfillChunkSize,
+                                @Value("${customer-stats.backfill.parallelism}") int backfillParallelism) {
+        this.customerStatsRepository = customerStatsRepository;
+        this.orderRepository = orderRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.backfillChunkSize = backfillChunkSize;
+        this.backfillParallelism = backfillParallelism;
+    }
+
+    /**
+     * Runs inside the order transaction, so the aggregate commits or rolls back with the order.
+     * The user row is locked first: a customer's first two orders would otherwise both find no
+     * stats row and both insert one, and a backfill chunk could overwrite the increment.
+     */
+    @Transactional
+    public void recordOrder(Long userId, BigDecimal amount, LocalDateTime orderDate) {
+        userRepository.lockById(userId);
+        CustomerStats stats = customerStatsRepository.findForUpdate(userId)
+                .orElseGet(() -> newStats(userId));
+        
+        stats.setOrderCount(stats.getOrderCount() + 1);
+        stats.setLifetimeValue(stats.getLifetimeValue().add(amount));
+        if (stats.getFirstOrderDate() == null || orderDate.isBefore(stats.getFirstOrderDate())) {
+            stats.setFirstOrderDate(orderDate);
+        }
+        if (stats.getLastOrderDate() == null || orderDate.isAfter(stats.getLastOrderDate())) {
+            stats.setLastOrderDate(orderDate);
+        }
+        customerStatsRepository.save(stats);
+    }
+
+    // Cancellations are rare, so the affected user is simply recomputed from their orders
+    @Transactional
+    public void recompute(Long userId) {
+        userRepository.lockById(userId);
+        List<Object[]> rows = orderRepository.aggregateCustomerOrders(Order.OrderStatus.CANCELLED, userId, userId);
+        if (rows.isEmpty()) {
+            customerStatsRepository.findForUpdate(userId).ifPresent(customerStatsRepository::delete);
+            return;
+        }
+        
+        CustomerStats stats = customerStatsRepository.findForUpdate(userId)
+                .orElseGet(() -> newStats(userId));
+        applyAggregate(stats, rows.get(0));
+        customerStatsRepository.save(stats);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<CustomerStatsDto> getCustomerStats(Pageable pageable) {
+        return customerStatsRepository.findAll(pageable).map(this::convertToDto);
+    }
+
+    @Transactional(readOnly = true)
+    public CustomerStatsDto getCustomerStats(Long userId) {
+        CustomerStats stats = customerStatsRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("No order history for user with id: " + userId));
+        return convertToDto(stats);
+    }
+
+    public boolean startBackfill() {
+        if (!backfillRunning.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread coordinator = new Thread(() -> {
+            try {
+                backfill();
+            } catch (RuntimeException e) {
+                log.error("Customer stats backfill failed", e);
+            } finally {
+                backfillRunning.set(false);
+            }
+        }, "customer-stats-backfill");
+        coordinator.setDaemon(true);
+        coordinator.start();
+        return true;
+    }
+
+    public boolean isBackfillRunning() {
+        return backfillRunning.get();
+    }
+
+    /**
+     * Rebuilds every row from order history. User ids are split into fixed ranges and each
+     * range is aggregated and written in its own transaction on a bounded pool.
+     */
+    public int backfill() {
+        List<Object[]> range = userRepository.findIdRange();
+        if (range.isEmpty() || range.get(0)[0] == null) {
+            return 0;
+        }
+        long minId = ((Number) range.get(0)[0]).longValue();
+        long maxId = ((Number) range.get(0)[1]).longValue();
+
+        long started = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(backfillParallelism);
+        try {
+            List<Future<Integer>> chunks = new ArrayList<>();
+            for (long from = minId; from <= maxId; from += backfillChunkSize) {
+                long fromId = from;
+                long toId = Math.min(maxId, from + backfillChunkSize - 1);
+                chunks.add(pool.submit(() -> transactionTemplate.execute(status -> backfillChunk(fromId, toId))));
+            }
+
+            int customers = 0;
+            for (Future<Integer> chunk : chunks) {
+                customers += chunk.get();
+            }
+            log.info("Customer stats backfill rebuilt {} customers in {} chunks ({} ms)",
+                    customers, chunks.size(), (System.nanoTime() - started) / 1_000_000);
+            return customers;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Customer stats backfill interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Customer stats backfill failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private int backfillChunk(long fromUserId, long toUserId) {
+        // Orders recorded while the chunk is rebuilt wait for it and then apply on top of the rebuilt rows
+        userRepository.lockIdRange(fromUserId, toUserId);
+        List<Object[]> aggregates = orderRepository.aggregateCustomerOrders(
+                Order.OrderStatus.CANCELLED, fromUserId, toUserId);
+        Map<Long, CustomerStats> existing = customerStatsRepository.findByUserIdBetween(fromUserId, toUserId)
+                .stream()
+                .collect(Collectors.toMap(CustomerStats::getUserId, Function.identity()));
+
+        List<CustomerStats> updated = new ArrayList<>(aggregates.size());
+        for (Object[] row : aggregates) {
+            Long userId = ((Number) row[0]).longValue();
+            CustomerStats stats = existing.remove(userId);
+            if (stats == null) {
+                stats = newStats(userId);
+            }
+            applyAggregate(stats, row);
+            updated.add(stats);
+        }
+        customerStatsRepository.saveAll(updated);
+        // Whatever is left no longer has any non-cancelled orders
+        customerStatsRepository.deleteAll(existing.values());
+        return updated.size();
+    }
+
+    private CustomerStats newStats(Long userId) {
+        CustomerStats stats = new CustomerStats();
+        stats.setUser(userRepository.getReferenceById(userId));
+        stats.setLifetimeValue(BigDecimal.ZERO);
+        return stats;
+    }
+
+    private void applyAggregate(CustomerStats stats, Object[] row) {
+        stats.setOrderCount(((Number) row[1]).longValue());      // orderCount
+        stats.setLifetimeValue((BigDecimal) row[2]);              // lifetimeValue
+        stats.setFirstOrderDate((LocalDateTime) row[3]);          // firstOrderDate
+        stats.setLastOrderDate((LocalDateTime) row[4]);           // lastOrderDate
+    }
+
+    private CustomerStatsDto convertToDto(CustomerStats stats) {
+        BigDecimal averageBasket = stats.getOrderCount() > 0
+                ? stats.getLifetimeValue().divide(BigDecimal.valueOf(stats.getOrderCount()), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+        
+        CustomerStatsDto dto = new CustomerStatsDto();
+        dto.setUserId(stats.getUserId());
+        dto.setUsername(stats.getUser().getUsername());
+        dto.setOrderCount(stats.getOrderCount());
+        dto.setLifetimeValue(stats.getLifetimeValue());
+        dto.setAverageBasket(averageBasket);
+        dto.setFirstOrderDate(stats.getFirstOrderDate());
+        dto.setLastOrderDate(stats.getLastOrderDate());
+        return dto;
+    }
+}
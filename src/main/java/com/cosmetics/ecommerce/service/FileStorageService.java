@@ -1,23 +1,54 @@
 package com.cosmetics.ecommerce.service;
 
+import com.cosmetics.ecommerce.model.ImageBlob;
+import com.cosmetics.ecommerce.repository.ImageBlobRepository;
+import com.cosmetics.ecommerce.storage.BlobStore;
+import com.cosmetics.ecommerce.storage.HotAssetCache;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.UUID;
-import javax.imageio.ImageIO;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Service
 public class FileStorageService {
 
-    private final String uploadDir = "uploads/products";
+    private static final Logger log = LoggerFactory.getLogger(FileStorageService.class);
+
+    // Uploads stored before content addressing keep their flat UUID names
+    private static final Pattern LEGACY_NAME =
+            Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}\\.[a-z]+");
+    private static final Pattern BLOB_NAME = Pattern.compile("([0-9a-f]{64})\\.[a-z]+");
+    private static final Pattern BLOB_URL = Pattern.compile("/api/files/([0-9a-f]{64})\\.[a-z]+(?:\\?.*)?$");
+    private static final Pattern SAFE_NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+
+    private final BlobStore blobStore;
+    private final HotAssetCache hotAssetCache;
+    private final ImageVariantService imageVariantService;
+    private final ImageBlobRepository imageBlobRepository;
+    private final TransactionTemplate transactionTemplate;
 
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB
     private static final int MAX_WIDTH = 2000;
@@ -27,43 +58,217 @@ public class FileStorageService {
     private static final List<String> ALLOWED_CONTENT_TYPES = Arrays.asList(
         "image/jpeg", "image/jpg", "image/png", "image/webp"
     );
+    private static final Map<ImageHeaderProbe.Format, String> CONTENT_TYPES = Map.of(
+        ImageHeaderProbe.Format.JPEG, "image/jpeg",
+        ImageHeaderProbe.Format.PNG, "image/png",
+        ImageHeaderProbe.Format.WEBP, "image/webp"
+    );
+
+    public FileStorageService(BlobStore blobStore, HotAssetCache hotAssetCache,
+                              ImageVariantService imageVariantService, ImageBlobRepository imageBlobRepository,
+                              TransactionTemplate transactionTemplate) {
+        this.blobStore = blobStore;
+        this.hotAssetCache = hotAssetCache;
+        this.imageVariantService = imageVariantService;
+        this.imageBlobRepository = imageBlobRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
 
-    public String storeFile(MultipartFile file) throws IOException {
+    /**
+     * Streams the upload to a staging file once, hashing it on the way, then validates
+     * format and dimensions from the staged file's header. Heap use stays at one copy buffer
+     * whatever the image size; the content only becomes visible under its key once accepted.
+     * Content that is already stored resolves to the existing blob.
+     */
+    public StoredFile storeFile(MultipartFile file) throws IOException {
         validateFile(file);
 
-        // Create upload directory if it doesn't exist
-        Path uploadPath = Paths.get(uploadDir);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
+        Path temp = blobStore.createStagingFile();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long size;
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                size = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            ImageHeaderProbe.ImageInfo image = ImageHeaderProbe.probe(temp);
+            validateDimensions(image);
+
+            // Named after the content and the detected format, not whatever the client called the file
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String fileName = hash + "." + image.getFormat().getExtension();
+            String key = getKey(fileName);
+            // Registered first, so the cleanup sweep either sees a fresh upload or has finished deleting the content
+            boolean duplicate = registerBlob(hash, image, size) && blobStore.exists(key);
+            if (!duplicate) {
+                blobStore.put(key, temp, CONTENT_TYPES.get(image.getFormat()));
+                imageVariantService.generateAsync(fileName, key);
+            }
+
+            return new StoredFile(fileName, hash, size, image.getWidth(), image.getHeight(), duplicate);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Deletes a stored file together with its variants and blob record, but only while no product references
+     * it and nothing re-uploaded the content since {@code uploadedBefore}. The record stays locked until the
+     * files are gone, so a re-upload of the same content waits and then stores it afresh; if the files cannot
+     * be deleted, the record is kept and the next sweep tries again.
+     *
+     * @return whether the file could be deleted
+     */
+    public boolean deleteFile(String fileName, Instant uploadedBefore) {
+        String hash = getContentHash(fileName);
+        if (hash == null) {
+            return deleteFiles(fileName);
+        }
+        if (!imageBlobRepository.existsById(hash)) {
+            // Content without a record still needs a row to lock; an upload racing this insert keeps its own
+            try {
+                imageBlobRepository.insertPlaceholder(hash, fileName.substring(hash.length() + 1), Instant.EPOCH);
+            } catch (DataIntegrityViolationException e) {
+                // Registered by a concurrent upload, whose timestamp makes the delete below a no-op
+            }
+        }
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (imageBlobRepository.findForUpdate(hash).isEmpty()
+                    || imageBlobRepository.deleteUnreferenced(hash, uploadedBefore) == 0) {
+                return false;
+            }
+            if (!deleteFiles(fileName)) {
+                status.setRollbackOnly();
+                return false;
+            }
+            return true;
+        }));
+    }
+
+    /**
+     * Lists every stored original, blobs and legacy uploads alike, but not their variants.
+     * The stream is read lazily and must be closed.
+     */
+    public Stream<BlobStore.BlobInfo> listFiles() throws IOException {
+        return blobStore.list("products/")
+                .filter(blob -> !blob.getKey().startsWith(ImageVariantService.VARIANT_PREFIX));
+    }
+
+    /**
+     * @return the SHA-256 a content-addressed file is named after, or {@code null} for legacy names
+     */
+    public String getContentHash(String fileName) {
+        Matcher matcher = BLOB_NAME.matcher(fileName);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    /**
+     * @return a local copy of the stored file, or empty if there is none
+     */
+    public Optional<Path> getFile(String fileName) throws IOException {
+        if (!SAFE_NAME.matcher(fileName).matches()) {
+            return Optional.empty();
+        }
+        return blobStore.getLocalFile(getKey(fileName));
+    }
+
+    /**
+     * @return a local copy of the variant, or empty if it has not been generated yet, in which case generation
+     * is queued and the caller should serve the original
+     */
+    public Optional<Path> getVariantFile(String fileName, ImageVariantService.Variant variant) throws IOException {
+        if (!SAFE_NAME.matcher(fileName).matches()) {
+            return Optional.empty();
+        }
+        Optional<Path> variantFile = blobStore.getLocalFile(imageVariantService.getVariantKey(fileName, variant));
+        if (variantFile.isEmpty()) {
+            generateIfStored(fileName);
+        }
+        return variantFile;
+    }
+
+    /**
+     * @return whether variants exist or will be generated for the file; if not, its original is served for all of them
+     */
+    public boolean hasVariants(String fileName) {
+        return imageVariantService.hasVariants(fileName);
+    }
+
+    /**
+     * @return a short-lived URL the client can fetch the file (or its variant, once generated) from directly,
+     * when the storage backend hands out such URLs
+     */
+    public Optional<URI> getDirectUrl(String fileName, ImageVariantService.Variant variant) throws IOException {
+        if (!SAFE_NAME.matcher(fileName).matches()) {
+            return Optional.empty();
+        }
+        String key = getKey(fileName);
+        Optional<URI> original = blobStore.getDirectUrl(key);
+        if (original.isEmpty() || !blobStore.exists(key)) {
+            return Optional.empty();
+        }
+        if (variant != null && imageVariantService.hasVariants(fileName)) {
+            String variantKey = imageVariantService.getVariantKey(fileName, variant);
+            if (blobStore.exists(variantKey)) {
+                return blobStore.getDirectUrl(variantKey);
+            }
+            imageVariantService.generateAsync(fileName, key);
         }
+        return original;
+    }
 
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        String fileExtension = getFileExtension(originalFilename);
-        String fileName = UUID.randomUUID().toString() + "." + fileExtension;
+    /**
+     * Maps a public file name to its storage key: {@code <sha256>.<ext>} to its shard under
+     * {@code products/blobs/}, anything else to the flat legacy location.
+     */
+    String getKey(String fileName) {
+        if (BLOB_NAME.matcher(fileName).matches()) {
+            return "products/blobs/" + fileName.substring(0, 2) + "/" + fileName.substring(2, 4) + "/" + fileName;
+        }
+        return "products/" + fileName;
+    }
 
-        // Store file
-        Path targetLocation = uploadPath.resolve(fileName);
-        Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Whether the content stored under a name can never change: true for content-addressed
+     * blobs and for the random names uploads were given before.
+     */
+    public boolean isImmutableName(String fileName) {
+        return BLOB_NAME.matcher(fileName).matches() || LEGACY_NAME.matcher(fileName).matches();
+    }
 
-        return fileName;
+    /**
+     * @return the stored blob an image URL served by {@code /api/files} points at, if any
+     */
+    public Optional<ImageBlob> findBlobForUrl(String imageUrl) {
+        if (imageUrl == null) {
+            return Optional.empty();
+        }
+        Matcher matcher = BLOB_URL.matcher(imageUrl);
+        return matcher.find() ? imageBlobRepository.findById(matcher.group(1)) : Optional.empty();
     }
 
-    public void deleteFile(String fileName) {
+    private boolean deleteFiles(String fileName) {
         try {
-            Path filePath = Paths.get(uploadDir).resolve(fileName);
-            Files.deleteIfExists(filePath);
+            blobStore.delete(getKey(fileName));
+            hotAssetCache.invalidate(fileName);
+            imageVariantService.deleteVariants(fileName);
+            return true;
         } catch (IOException e) {
-            // Log error but don't throw exception
-            System.err.println("Could not delete file: " + fileName);
+            log.warn("Could not delete file {}", fileName, e);
+            return false;
         }
     }
 
-    public Path getFilePath(String fileName) {
-        return Paths.get(uploadDir).resolve(fileName);
+    private void generateIfStored(String fileName) throws IOException {
+        String key = getKey(fileName);
+        if (blobStore.exists(key)) {
+            imageVariantService.generateAsync(fileName, key);
+        }
     }
 
-    private void validateFile(MultipartFile file) throws IOException {
+    private void validateFile(MultipartFile file) {
         if (file.isEmpty()) {
             throw new IllegalArgumentException("File is empty");
         }
@@ -82,38 +287,50 @@ public class FileStorageService {
                 "Invalid file type. Allowed types: JPEG, PNG, WebP"
             );
         }
+    }
 
-        // Check image dimensions
+    // @return whether the content was already registered; if not, the caller stores it even when a file exists
+    private boolean registerBlob(String hash, ImageHeaderProbe.ImageInfo image, long size) {
+        Instant now = Instant.now();
         try {
-            BufferedImage image = ImageIO.read(file.getInputStream());
-            if (image == null) {
-                throw new IllegalArgumentException("Invalid image file");
-            }
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                // Waits for a cleanup sweep that is deleting this content; the row is gone once it is done
+                Optional<ImageBlob> existing = imageBlobRepository.findForUpdate(hash);
+                if (existing.isEmpty()) {
+                    imageBlobRepository.saveAndFlush(new ImageBlob(hash, image.getFormat().getExtension(), size,
+                            image.getWidth(), image.getHeight(), now, now));
+                    return false;
+                }
+                // Also fills in a placeholder the sweep registered for content it found without a record
+                ImageBlob blob = existing.get();
+                blob.setExtension(image.getFormat().getExtension());
+                blob.setSize(size);
+                blob.setWidth(image.getWidth());
+                blob.setHeight(image.getHeight());
+                blob.setLastUploadedAt(now);
+                return true;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            // The same content was registered by a concurrent upload
+            return true;
+        }
+    }
 
-            int width = image.getWidth();
-            int height = image.getHeight();
+    private void validateDimensions(ImageHeaderProbe.ImageInfo image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
 
-            if (width < MIN_WIDTH || height < MIN_HEIGHT) {
-                throw new IllegalArgumentException(
-                    String.format("Image dimensions too small. Minimum: %dx%d pixels", MIN_WIDTH, MIN_HEIGHT)
-                );
-            }
-
-            if (width > MAX_WIDTH || height > MAX_HEIGHT) {
-                throw new IllegalArgumentException(
-                    String.format("Image dimensions too large. Maximum: %dx%d pixels", MAX_WIDTH, MAX_HEIGHT)
-                );
-            }
-        } catch (IOException e) {
-            throw new IllegalArgumentException("Could not read image file", e);
+        if (width < MIN_WIDTH || height < MIN_HEIGHT) {
+            throw new IllegalArgumentException(
+                String.format("Image dimensions too small. Minimum: %dx%d pixels", MIN_WIDTH, MIN_HEIGHT)
+            );
         }
-    }
 
-    private String getFileExtension(String filename) {
-        if (filename == null || filename.lastIndexOf(".") == -1) {
-            return "";
+        if (width > MAX_WIDTH || height > MAX_HEIGHT) {
+            throw new IllegalArgumentException(
+                String.format("Image dimensions too large. Maximum: %dx%d pixels", MAX_WIDTH, MAX_HEIGHT)
+            );
         }
-        return filename.substring(filename.lastIndexOf(".") + 1).toLowerCase();
     }
 
     public long getMaxFileSizeMB() {
@@ -139,4 +356,15 @@ public class FileStorageService {
     public List<String> getAllowedFormats() {
         return Arrays.asList("JPEG", "PNG", "WebP");
     }
+
+    @Getter
+    @AllArgsConstructor
+    public static class StoredFile {
+        private final String fileName;
+        private final String contentHash;
+        private final long size;
+        private final int width;
+        private final int height;
+        private final boolean duplicate;
+    }
 }
\ No newline at end of file
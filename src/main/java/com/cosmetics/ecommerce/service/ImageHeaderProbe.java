@@ -0,0 +1,165 @@
+package com.cosmetics.ecommerce.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads an image's format and dimensions from its header bytes alone. Only the JPEG
+ * segments before the frame header are walked (and skipped, not buffered), so the cost is
+ * independent of the pixel count and nothing is decoded.
+ */
+public final class ImageHeaderProbe {
+
+    public enum Format {
+        JPEG("jpg"), PNG("png"), WEBP("webp");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ImageInfo {
+        private final Format format;
+        private final int width;
+        private final int height;
+    }
+
+    private ImageHeaderProbe() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the file is not a JPEG, PNG or WebP image with a readable header
+     */
+    public static ImageInfo probe(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 8192))) {
+            in.mark(16);
+            byte[] magic = new byte[12];
+            int read = in.readNBytes(magic, 0, magic.length);
+            in.reset();
+            if (read >= 3 && (magic[0] & 0xFF) == 0xFF && (magic[1] & 0xFF) == 0xD8 && (magic[2] & 0xFF) == 0xFF) {
+                return jpeg(in);
+            }
+            if (read >= 8 && (magic[0] & 0xFF) == 0x89 && magic[1] == 'P' && magic[2] == 'N' && magic[3] == 'G') {
+                return png(in);
+            }
+            if (read >= 12 && ascii(magic, 0, "RIFF") && ascii(magic, 8, "WEBP")) {
+                return webp(in);
+            }
+            throw new IllegalArgumentException("Invalid image file");
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("Invalid image file: truncated header");
+        }
+    }
+
+    private static ImageInfo jpeg(DataInputStream in) throws IOException {
+        in.skipNBytes(2);
+        while (true) {
+            int marker = in.readUnsignedByte();
+            if (marker != 0xFF) {
+                throw new IllegalArgumentException("Invalid image file: corrupt JPEG header");
+            }
+            int type = in.readUnsignedByte();
+            while (type == 0xFF) {
+                type = in.readUnsignedByte();
+            }
+            // Standalone markers carry no length
+            if (type == 0x01 || (type >= 0xD0 && type <= 0xD7)) {
+                continue;
+            }
+            if (type == 0xD9 || type == 0xDA) {
+                throw new IllegalArgumentException("Invalid image file: JPEG has no frame header");
+            }
+            int length = in.readUnsignedShort();
+            // SOF0..SOF15 except DHT (C4), JPG (C8) and DAC (CC)
+            if (type >= 0xC0 && type <= 0xCF && type != 0xC4 && type != 0xC8 && type != 0xCC) {
+                in.skipNBytes(1);
+                int height = in.readUnsignedShort();
+                int width = in.readUnsignedShort();
+                return new ImageInfo(Format.JPEG, width, height);
+            }
+            if (length < 2) {
+                throw new IllegalArgumentException("Invalid image file: corrupt JPEG header");
+            }
+            in.skipNBytes(length - 2);
+        }
+    }
+
+    private static ImageInfo png(DataInputStream in) throws IOException {
+        in.skipNBytes(8);
+        in.skipNBytes(4);
+        byte[] chunkType = in.readNBytes(4);
+        if (!ascii(chunkType, 0, "IHDR")) {
+            throw new IllegalArgumentException("Invalid image file: PNG does not start with IHDR");
+        }
+        int width = in.readInt();
+        int height = in.readInt();
+        return new ImageInfo(Format.PNG, width, height);
+    }
+
+    private static ImageInfo webp(DataInputStream in) throws IOException {
+        in.skipNBytes(12);
+        byte[] chunk = in.readNBytes(8);
+        if (chunk.length < 8) {
+            throw new EOFException();
+        }
+        if (ascii(chunk, 0, "VP8 ")) {
+            // Frame tag (3 bytes) and start code 9D 01 2A, then 14-bit dimensions
+            byte[] frame = in.readNBytes(10);
+            if (frame.length < 10 || (frame[3] & 0xFF) != 0x9D || (frame[4] & 0xFF) != 0x01 || (frame[5] & 0xFF) != 0x2A) {
+                throw new IllegalArgumentException("Invalid image file: corrupt WebP header");
+            }
+            return new ImageInfo(Format.WEBP, littleEndian(frame, 6, 2) & 0x3FFF, littleEndian(frame, 8, 2) & 0x3FFF);
+        }
+        if (ascii(chunk, 0, "VP8L")) {
+            byte[] header = in.readNBytes(5);
+            if (header.length < 5 || (header[0] & 0xFF) != 0x2F) {
+                throw new IllegalArgumentException("Invalid image file: corrupt WebP header");
+            }
+            int bits = littleEndian(header, 1, 4);
+            return new ImageInfo(Format.WEBP, (bits & 0x3FFF) + 1, ((bits >>> 14) & 0x3FFF) + 1);
+        }
+        if (ascii(chunk, 0, "VP8X")) {
+            byte[] header = in.readNBytes(10);
+            if (header.length < 10) {
+                throw new EOFException();
+            }
+            return new ImageInfo(Format.WEBP, littleEndian(header, 4, 3) + 1, littleEndian(header, 7, 3) + 1);
+        }
+        throw new IllegalArgumentException("Invalid image file: unsupported WebP encoding");
+    }
+
+    private static int littleEndian(byte[] bytes, int offset, int length) {
+        int value = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static boolean ascii(byte[] bytes, int offset, String expected) {
+        if (bytes.length < offset + expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (bytes[offset + i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
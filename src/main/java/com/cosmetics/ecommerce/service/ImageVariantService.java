@@ -0,0 +1,282 @@
+package com.cosmetics.ecommerce.service;
+
+import com.cosmetics.ecommerce.storage.BlobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Produces the fixed-size JPEG variants listing grids and detail pages display, so they
+ * never download the full upload. Variants are stored in the {@link BlobStore} next to
+ * their originals. Work runs on a small bounded pool off the request
+ * thread; a variant that is missing when requested (pool was full, or the file predates
+ * this service) is scheduled then and the original is served meanwhile.
+ */
+@Service
+public class ImageVariantService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantService.class);
+
+    public enum Variant {
+        THUMB(200), CARD(480), DETAIL(1000);
+
+        private final int maxSize;
+
+        Variant(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        /**
+         * @return the named variant, or {@code null} for {@code original}
+         */
+        public static Variant parse(String name) {
+            if ("original".equalsIgnoreCase(name)) {
+                return null;
+            }
+            for (Variant variant : values()) {
+                if (variant.name().equalsIgnoreCase(name)) {
+                    return variant;
+                }
+            }
+            throw new IllegalArgumentException("Unknown image variant: " + name
+                    + ". Allowed: thumb, card, detail, original");
+        }
+
+        /**
+         * @return the smallest variant at least {@code width} pixels wide, or {@code null} if only the original is
+         */
+        public static Variant forWidth(int width) {
+            if (width < 1) {
+                throw new IllegalArgumentException("Width must be positive");
+            }
+            for (Variant variant : values()) {
+                if (variant.maxSize >= width) {
+                    return variant;
+                }
+            }
+            return null;
+        }
+    }
+
+    static final String VARIANT_PREFIX = "products/variants/";
+
+    private final BlobStore blobStore;
+    private final float jpegQuality;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    // By file extension; WebP has no ImageIO reader in a stock JVM
+    private final Map<String, Boolean> decodable = new ConcurrentHashMap<>();
+
+    public ImageVariantService(BlobStore blobStore,
+                               @Value("${file.variants.threads}") int threads,
+                               @Value("${file.variants.queue-capacity}") int queueCapacity,
+                               @Value("${file.variants.jpeg-quality}") float jpegQuality) {
+        this.blobStore = blobStore;
+        this.jpegQuality = jpegQuality;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "image-variants-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @return whether variants can be generated for the file; if not, its original stands in for every variant
+     */
+    public boolean hasVariants(String fileName) {
+        String extension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        return decodable.computeIfAbsent(extension, suffix -> ImageIO.getImageReadersBySuffix(suffix).hasNext());
+    }
+
+    /**
+     * Queues variant generation for a stored original unless it is already queued or cannot be decoded.
+     */
+    public void generateAsync(String fileName, String originalKey) {
+        if (!hasVariants(fileName) || !pending.add(fileName)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(fileName, originalKey);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Could not generate variants for {}", fileName, e);
+                } finally {
+                    pending.remove(fileName);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(fileName);
+            log.debug("Variant queue full, skipping {} until it is next requested", fileName);
+        }
+    }
+
+    public String getVariantKey(String fileName, Variant variant) {
+        String baseName = baseName(fileName);
+        String variantName = baseName + "_" + variant.name().toLowerCase(Locale.ROOT) + ".jpg";
+        if (baseName.length() < 4) {
+            return VARIANT_PREFIX + variantName;
+        }
+        // Sharded like the blobs they are derived from
+        return VARIANT_PREFIX + baseName.substring(0, 2) + "/" + baseName.substring(2, 4) + "/" + variantName;
+    }
+
+    public void deleteVariants(String fileName) {
+        for (Variant variant : Variant.values()) {
+            try {
+                blobStore.delete(getVariantKey(fileName, variant));
+            } catch (IOException e) {
+                log.warn("Could not delete {} variant of {}", variant, fileName, e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    void generate(String fileName, String originalKey) throws IOException {
+        Path original = blobStore.getLocalFile(originalKey).orElse(null);
+        if (original == null) {
+            return;
+        }
+        BufferedImage image = decode(original, Variant.DETAIL.maxSize);
+        if (image == null) {
+            // Named after a format that has a reader, but the content is not in it
+            log.warn("No image reader for the content of {}; serving the original for every variant", fileName);
+            return;
+        }
+
+        Variant[] variants = Variant.values();
+        // Largest first, each scaled from the previous one rather than from the full image
+        for (int i = variants.length - 1; i >= 0; i--) {
+            image = scaleToFit(image, variants[i].maxSize);
+            write(image, getVariantKey(fileName, variants[i]));
+        }
+    }
+
+    /**
+     * Decodes with source subsampling, so a 2000px upload is read at roughly the largest
+     * variant's size instead of materializing every pixel.
+     */
+    private BufferedImage decode(Path file, int largestSize) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, longest / largestSize);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scaleToFit(BufferedImage source, int maxSize) {
+        BufferedImage current = source;
+        int targetWidth = source.getWidth();
+        int targetHeight = source.getHeight();
+        int longest = Math.max(targetWidth, targetHeight);
+        if (longest > maxSize) {
+            targetWidth = Math.max(1, (int) Math.round((double) targetWidth * maxSize / longest));
+            targetHeight = Math.max(1, (int) Math.round((double) targetHeight * maxSize / longest));
+        }
+
+        // Halve repeatedly before the last step; a single bilinear pass over a large ratio aliases badly
+        int width = current.getWidth();
+        int height = current.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = draw(current, width, height);
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        // JPEG has no alpha, so transparent product shots are flattened onto white
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private void write(BufferedImage image, String key) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        Path temp = blobStore.createStagingFile();
+        try {
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(out);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            blobStore.put(key, temp, "image/jpeg");
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static String baseName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+}
@@ -2,9 +2,13 @@ package com.cosmetics.ecommerce.service;
 
 import com.cosmetics.ecommerce.dto.OrderDto;
 import com.cosmetics.ecommerce.dto.OrderItemDto;
+import com.cosmetics.ecommerce.event.OrderPlacedEvent;
+import com.cosmetics.ecommerce.event.OrderStatusChangedEvent;
 import com.cosmetics.ecommerce.exception.ResourceNotFoundException;
 import com.cosmetics.ecommerce.model.*;
 import com.cosmetics.ecommerce.repository.*;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -12,9 +16,12 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,19 +32,27 @@ public class OrderService {
     private final UserRepository userRepository;
     private final CartRepository cartRepository;
     private final ProductRepository productRepository;
+    private final CustomerStatsService customerStatsService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public OrderService(OrderRepository orderRepository, OrderItemRepository orderItemRepository,
                         UserRepository userRepository, CartRepository cartRepository,
-                        ProductRepository productRepository) {
+                        ProductRepository productRepository, CustomerStatsService customerStatsService,
+                        ApplicationEventPublisher eventPublisher) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
         this.userRepository = userRepository;
         this.cartRepository = cartRepository;
         this.productRepository = productRepository;
+        this.customerStatsService = customerStatsService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
+    @Timed(value = "orders.create", histogram = true)
     public OrderDto createOrder(Long userId, String shippingAddress) {
+        // Taken before the order insert so concurrent checkouts of one customer queue here instead of deadlocking later
+        userRepository.lockById(userId);
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
         
@@ -85,36 +100,45 @@ public class OrderService {
         cart.setTotalAmount(BigDecimal.ZERO);
         cartRepository.save(cart);
         
+        customerStatsService.recordOrder(userId, savedOrder.getTotalAmount(), savedOrder.getOrderDate());
+        eventPublisher.publishEvent(toPlacedEvent(savedOrder));
+        
         return convertToDto(savedOrder);
     }
 
+    @Transactional(readOnly = true)
     public Page<OrderDto> getOrdersByUserId(Long userId, Pageable pageable) {
-        userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found with id: " + userId);
+        }
         
-        return orderRepository.findByUserId(userId, pageable).map(this::convertToDto);
+        Page<Order> orders = orderRepository.findByUserId(userId, pageable);
+        return orders.map(withItemsOf(orders.getContent()));
     }
 
-    public OrderDto getOrderById(Long id, Long userId) {
+    public OrderDto getOrderById(Long id, Long userId, boolean admin) {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
         
         // Check if order belongs to user or user is admin
-        if (!order.getUser().getId().equals(userId) && 
-            !userRepository.findById(userId).get().getRoles().contains(User.Role.ROLE_ADMIN)) {
+        if (!admin && !order.getUser().getId().equals(userId)) {
             throw new IllegalArgumentException("Not authorized to view this order");
         }
         
         return convertToDto(order);
     }
 
+    @Transactional(readOnly = true)
     public Page<OrderDto> getAllOrders(Pageable pageable) {
-        return orderRepository.findAll(pageable).map(this::convertToDto);
+        Page<Order> orders = orderRepository.findAll(pageable);
+        return orders.map(withItemsOf(orders.getContent()));
     }
 
+    @Transactional(readOnly = true)
     public List<OrderDto> getOrdersByStatus(Order.OrderStatus status) {
-        return orderRepository.findByStatus(status).stream()
-                .map(this::convertToDto)
+        List<Order> orders = orderRepository.findByStatus(status);
+        return orders.stream()
+                .map(withItemsOf(orders))
                 .collect(Collectors.toList());
     }
 
@@ -123,6 +147,7 @@ public class OrderService {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
         
+        Order.OrderStatus previousStatus = order.getStatus();
         order.setStatus(status);
         
         if (trackingNumber != null) {
@@ -130,10 +155,51 @@ public class OrderService {
         }
         
         Order updatedOrder = orderRepository.save(order);
+        
+        boolean cancellationChanged = (previousStatus == Order.OrderStatus.CANCELLED) != (status == Order.OrderStatus.CANCELLED);
+        if (cancellationChanged) {
+            customerStatsService.recompute(updatedOrder.getUser().getId());
+        }
+        
+        if (previousStatus != status) {
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(updatedOrder.getId(),
+                    updatedOrder.getUser().getId(), updatedOrder.getTotalAmount(), previousStatus, status));
+        }
+        
         return convertToDto(updatedOrder);
     }
 
+    private OrderPlacedEvent toPlacedEvent(Order order) {
+        List<OrderPlacedEvent.Line> lines = order.getOrderItems().stream()
+                .map(item -> new OrderPlacedEvent.Line(
+                        item.getProduct().getId(),
+                        item.getProduct().getCategory().getId(),
+                        item.getQuantity(),
+                        item.getUnitPrice(),
+                        item.getSubtotal()))
+                .collect(Collectors.toList());
+        return new OrderPlacedEvent(order.getId(), order.getUser().getId(), order.getOrderDate(),
+                order.getTotalAmount(), lines);
+    }
+
+    /**
+     * Converts a list of orders with their items fetched in one query, instead of one
+     * query per order when each order's item collection is initialized.
+     */
+    private Function<Order, OrderDto> withItemsOf(List<Order> orders) {
+        Map<Long, List<OrderItem>> items = orders.isEmpty()
+                ? Map.of()
+                : orderItemRepository.findByOrderIdIn(orders.stream().map(Order::getId).collect(Collectors.toList()))
+                        .stream()
+                        .collect(Collectors.groupingBy(item -> item.getOrder().getId()));
+        return order -> convertToDto(order, items.getOrDefault(order.getId(), List.of()));
+    }
+
     private OrderDto convertToDto(Order order) {
+        return convertToDto(order, order.getOrderItems());
+    }
+
+    private OrderDto convertToDto(Order order, Collection<OrderItem> orderItems) {
         OrderDto orderDto = new OrderDto();
         orderDto.setId(order.getId());
         orderDto.setUserId(order.getUser().getId());
@@ -144,8 +210,8 @@ public class OrderService {
         orderDto.setShippingAddress(order.getShippingAddress());
         orderDto.setTrackingNumber(order.getTrackingNumber());
         
-        if (order.getOrderItems() != null) {
-            List<OrderItemDto> items = order.getOrderItems().stream()
+        if (orderItems != null) {
+            List<OrderItemDto> items = orderItems.stream()
                     .map(this::convertItemToDto)
                     .collect(Collectors.toList());
             orderDto.setItems(items);
@@ -3,22 +3,34 @@ package com.cosmetics.ecommerce.service;
 import com.cosmetics.ecommerce.dto.ProductDto;
 import com.cosmetics.ecommerce.exception.ResourceNotFoundException;
 import com.cosmetics.ecommerce.model.Category;
+import com.cosmetics.ecommerce.model.ImageBlob;
 import com.cosmetics.ecommerce.model.Product;
+import com.cosmetics.ecommerce.model.ProductImage;
 import com.cosmetics.ecommerce.repository.CategoryRepository;
+import com.cosmetics.ecommerce.repository.ProductImageRepository;
 import com.cosmetics.ecommerce.repository.ProductRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
 
 @Service
 public class ProductService {
 
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final ProductImageRepository productImageRepository;
+    private final FileStorageService fileStorageService;
 
-    public ProductService(ProductRepository productRepository, CategoryRepository categoryRepository) {
+    public ProductService(ProductRepository productRepository, CategoryRepository categoryRepository,
+                          ProductImageRepository productImageRepository, FileStorageService fileStorageService) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
+        this.productImageRepository = productImageRepository;
+        this.fileStorageService = fileStorageService;
     }
 
     public Page<ProductDto> getAllProducts(Pageable pageable) {
@@ -35,18 +47,22 @@ public class ProductService {
         return productRepository.findByCategoryId(categoryId, pageable).map(this::convertToDto);
     }
 
+    @Timed(value = "products.search", histogram = true)
     public Page<ProductDto> searchProducts(String keyword, Pageable pageable) {
         return productRepository.findByNameContainingIgnoreCase(keyword, pageable).map(this::convertToDto);
     }
 
+    @Transactional
     public ProductDto createProduct(ProductDto productDto) {
         Product product = new Product();
         updateProductFromDto(product, productDto);
         
         Product savedProduct = productRepository.save(product);
+        updateImageReference(savedProduct);
         return convertToDto(savedProduct);
     }
 
+    @Transactional
     public ProductDto updateProduct(Long id, ProductDto productDto) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
@@ -54,14 +70,30 @@ public class ProductService {
         updateProductFromDto(product, productDto);
         
         Product updatedProduct = productRepository.save(product);
+        updateImageReference(updatedProduct);
         return convertToDto(updatedProduct);
     }
 
+    @Transactional
     public void deleteProduct(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+        productImageRepository.deleteByProductId(id);
         productRepository.delete(product);
     }
+
+    // Points the product's reference row at the blob its image URL names, or drops it for external URLs
+    private void updateImageReference(Product product) {
+        Optional<ImageBlob> blob = fileStorageService.findBlobForUrl(product.getImageUrl());
+        Optional<ProductImage> existing = productImageRepository.findByProductId(product.getId());
+        if (blob.isEmpty()) {
+            existing.ifPresent(productImageRepository::delete);
+            return;
+        }
+        ProductImage reference = existing.orElseGet(() -> new ProductImage(null, product, null));
+        reference.setBlob(blob.get());
+        productImageRepository.save(reference);
+    }
     
     private void updateProductFromDto(Product product, ProductDto productDto) {
         product.setName(productDto.getName());
@@ -0,0 +1,116 @@
+package com.cosmetics.ecommerce.service;
+
+import com.cosmetics.ecommerce.exception.InvalidRefreshTokenException;
+import com.cosmetics.ecommerce.model.RefreshToken;
+import com.cosmetics.ecommerce.repository.RefreshTokenRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Issues and rotates refresh tokens. Access tokens stay short-lived and are verified
+ * without any lookup; only the occasional refresh reaches the database.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final long refreshExpirationMillis;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               @Value("${jwt.refresh-expiration}") long refreshExpirationMillis) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshExpirationMillis = refreshExpirationMillis;
+    }
+
+    /**
+     * Starts a new rotation chain, e.g. at login.
+     */
+    public String issue(Long userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchanges a refresh token for its successor. Presenting a token that was already
+     * exchanged means it leaked, so the whole chain is revoked and the owner has to log
+     * in again.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public Rotation rotate(String rawToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenHashForUpdate(hash(rawToken))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Invalid refresh token"));
+
+        if (current.isRevoked() || current.getUsedAt() != null) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId());
+            log.warn("Refresh token reuse detected for user {}, revoking token family {}",
+                    current.getUserId(), current.getFamilyId());
+            throw new InvalidRefreshTokenException("Invalid refresh token");
+        }
+        Instant now = Instant.now();
+        if (!current.getExpiresAt().isAfter(now)) {
+            throw new InvalidRefreshTokenException("Refresh token has expired");
+        }
+
+        current.setUsedAt(now);
+        return new Rotation(current.getUserId(), issue(current.getUserId(), current.getFamilyId()));
+    }
+
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId()));
+    }
+
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${security.revocation.purge-interval-ms}")
+    public void purgeExpired() {
+        refreshTokenRepository.deleteExpired(Instant.now());
+    }
+
+    private String issue(Long userId, String familyId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        Instant now = Instant.now();
+        refreshTokenRepository.save(new RefreshToken(null, hash(rawToken), familyId, userId, now,
+                now.plusMillis(refreshExpirationMillis), null, false));
+        return rawToken;
+    }
+
+    // The token is 256 random bits, so a plain digest is enough to make the stored value useless
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Rotation {
+        private final Long userId;
+        private final String refreshToken;
+    }
+}
@@ -0,0 +1,225 @@
+package com.cosmetics.ecommerce.service;
+
+import com.cosmetics.ecommerce.dto.UploadSweepStatusDto;
+import com.cosmetics.ecommerce.model.ImageBlob;
+import com.cosmetics.ecommerce.repository.ImageBlobRepository;
+import com.cosmetics.ecommerce.repository.ProductImageRepository;
+import com.cosmetics.ecommerce.repository.ProductRepository;
+import com.cosmetics.ecommerce.storage.BlobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Background sweep deleting uploads no product references any more: images replaced on a
+ * product, products deleted, and uploads abandoned before the product form was saved. Stored
+ * files are streamed from the blob store and checked against product references a batch at a
+ * time. Anything uploaded within the grace period is kept, and deletions are paced so a large
+ * backlog does not turn into an I/O spike. A dry run reports the orphans without deleting.
+ */
+@Service
+public class UploadCleanupService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadCleanupService.class);
+
+    // Orphans listed in the status; counts cover all of them
+    private static final int REPORT_LIMIT = 1000;
+
+    private final FileStorageService fileStorageService;
+    private final ProductImageRepository productImageRepository;
+    private final ProductRepository productRepository;
+    private final ImageBlobRepository imageBlobRepository;
+    private final boolean enabled;
+    private final Duration gracePeriod;
+    private final int batchSize;
+    private final long deleteIntervalNanos;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Progress of the current or most recent run, written by the sweep thread only
+    private volatile String state = "IDLE";
+    private volatile boolean dryRun;
+    private volatile long filesScanned;
+    private volatile long referenced;
+    private volatile long tooRecent;
+    private volatile long orphaned;
+    private volatile long deleted;
+    private volatile long bytesReclaimed;
+    private volatile List<String> orphans = List.of();
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    // Names of legacy uploads products point at, loaded by the sweep thread once per run when it meets one
+    private Set<String> referencedLegacyNames;
+
+    public UploadCleanupService(FileStorageService fileStorageService,
+                                ProductImageRepository productImageRepository,
+                                ProductRepository productRepository,
+                                ImageBlobRepository imageBlobRepository,
+                                @Value("${file.cleanup.enabled}") boolean enabled,
+                                @Value("${file.cleanup.grace-period-hours}") long gracePeriodHours,
+                                @Value("${file.cleanup.batch-size}") int batchSize,
+                                @Value("${file.cleanup.max-deletes-per-second}") int maxDeletesPerSecond) {
+        this.fileStorageService = fileStorageService;
+        this.productImageRepository = productImageRepository;
+        this.productRepository = productRepository;
+        this.imageBlobRepository = imageBlobRepository;
+        this.enabled = enabled;
+        this.gracePeriod = Duration.ofHours(gracePeriodHours);
+        this.batchSize = Math.max(1, batchSize);
+        this.deleteIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, maxDeletesPerSecond);
+    }
+
+    @Scheduled(initialDelayString = "${file.cleanup.interval-ms}", fixedDelayString = "${file.cleanup.interval-ms}")
+    public void sweepPeriodically() {
+        if (enabled) {
+            start(false);
+        }
+    }
+
+    public boolean start(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        state = "RUNNING";
+        this.dryRun = dryRun;
+        filesScanned = 0;
+        referenced = 0;
+        tooRecent = 0;
+        orphaned = 0;
+        deleted = 0;
+        bytesReclaimed = 0;
+        orphans = List.of();
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        error = null;
+
+        Thread sweep = new Thread(this::run, "upload-cleanup");
+        sweep.setDaemon(true);
+        sweep.start();
+        return true;
+    }
+
+    public UploadSweepStatusDto getStatus() {
+        return new UploadSweepStatusDto(state, dryRun, gracePeriod.toHours(), filesScanned, referenced, tooRecent,
+                orphaned, deleted, bytesReclaimed, orphans, startedAt, finishedAt, error);
+    }
+
+    private void run() {
+        try {
+            List<String> report = new ArrayList<>();
+            Instant cutoff = Instant.now().minus(gracePeriod);
+            List<BlobStore.BlobInfo> batch = new ArrayList<>(batchSize);
+            try (Stream<BlobStore.BlobInfo> files = fileStorageService.listFiles()) {
+                Iterator<BlobStore.BlobInfo> iterator = files.iterator();
+                while (iterator.hasNext()) {
+                    batch.add(iterator.next());
+                    filesScanned++;
+                    if (batch.size() == batchSize) {
+                        sweepBatch(batch, cutoff, report);
+                        batch.clear();
+                    }
+                }
+            }
+            sweepBatch(batch, cutoff, report);
+            orphans = Collections.unmodifiableList(report);
+            state = "COMPLETED";
+            log.info("Upload cleanup {}: {} files scanned, {} orphaned, {} deleted, {} bytes reclaimed",
+                    dryRun ? "dry run" : "run", filesScanned, orphaned, deleted, bytesReclaimed);
+        } catch (IOException | RuntimeException e) {
+            log.error("Upload cleanup failed", e);
+            error = e.getMessage();
+            state = "FAILED";
+        } finally {
+            referencedLegacyNames = null;
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+    }
+
+    private void sweepBatch(List<BlobStore.BlobInfo> batch, Instant cutoff, List<String> report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<String, String> hashes = batch.stream()
+                .map(this::fileName)
+                .filter(name -> fileStorageService.getContentHash(name) != null)
+                .collect(Collectors.toMap(Function.identity(), fileStorageService::getContentHash));
+        Set<String> referencedHashes = hashes.isEmpty()
+                ? Set.of()
+                : new HashSet<>(productImageRepository.findReferencedBlobHashes(hashes.values()));
+        Map<String, Instant> lastUploads = imageBlobRepository.findAllById(hashes.values()).stream()
+                .collect(Collectors.toMap(ImageBlob::getHash, ImageBlob::getLastUploadedAt));
+        // Legacy uploads have no reference index; match their names against the image URLs instead
+        if (referencedLegacyNames == null && hashes.size() < batch.size()) {
+            referencedLegacyNames = productRepository.findFileImageUrls().stream()
+                    .map(this::fileNameInUrl)
+                    .collect(Collectors.toSet());
+        }
+
+        long nextDeleteNanos = System.nanoTime();
+        for (BlobStore.BlobInfo file : batch) {
+            String name = fileName(file);
+            String hash = hashes.get(name);
+            boolean inUse = hash != null ? referencedHashes.contains(hash) : referencedLegacyNames.contains(name);
+            if (inUse) {
+                referenced++;
+                continue;
+            }
+            Instant lastUpload = hash != null ? lastUploads.get(hash) : null;
+            if (file.getLastModified().isAfter(cutoff) || (lastUpload != null && lastUpload.isAfter(cutoff))) {
+                tooRecent++;
+                continue;
+            }
+
+            orphaned++;
+            if (report.size() < REPORT_LIMIT) {
+                report.add(name);
+            }
+            if (dryRun) {
+                continue;
+            }
+            long wait = nextDeleteNanos - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            nextDeleteNanos = Math.max(nextDeleteNanos, System.nanoTime()) + deleteIntervalNanos;
+            if (fileStorageService.deleteFile(name, cutoff)) {
+                deleted++;
+                bytesReclaimed += file.getSize();
+            }
+        }
+    }
+
+    private String fileName(BlobStore.BlobInfo file) {
+        return file.getKey().substring(file.getKey().lastIndexOf('/') + 1);
+    }
+
+    // The file name an /api/files URL points at, without any query string
+    private String fileNameInUrl(String imageUrl) {
+        String name = imageUrl.substring(imageUrl.lastIndexOf("/api/files/") + "/api/files/".length());
+        int query = name.indexOf('?');
+        return query >= 0 ? name.substring(0, query) : name;
+    }
+}
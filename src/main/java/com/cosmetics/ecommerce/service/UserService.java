@@ -3,6 +3,8 @@ package com.cosmetics.ecommerce.service;
 import com.cosmetics.ecommerce.dto.UserDto;
 import com.cosmetics.ecommerce.model.User;
 import com.cosmetics.ecommerce.repository.UserRepository;
+import com.cosmetics.ecommerce.security.CustomUserDetailsService;
+import com.cosmetics.ecommerce.security.TokenRevocationService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -17,10 +19,19 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
+    private final RefreshTokenService refreshTokenService;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       CustomUserDetailsService userDetailsService,
+                       TokenRevocationService tokenRevocationService,
+                       RefreshTokenService refreshTokenService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userDetailsService = userDetailsService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.refreshTokenService = refreshTokenService;
     }
 
     public UserDto createUser(User user, boolean isAdmin) {
@@ -67,6 +78,7 @@ public class UserService {
         }
         
         User updatedUser = userRepository.save(user);
+        userDetailsService.evict(updatedUser.getUsername());
         return convertToDto(updatedUser);
     }
 
@@ -74,6 +86,9 @@ public class UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + id));
         userRepository.delete(user);
+        userDetailsService.evict(user.getUsername());
+        tokenRevocationService.revokeUser(id);
+        refreshTokenService.revokeAll(id);
     }
 
     private UserDto convertToDto(User user) {
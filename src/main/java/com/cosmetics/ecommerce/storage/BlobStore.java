@@ -0,0 +1,59 @@
+package com.cosmetics.ecommerce.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Where uploaded images and their variants live, addressed by slash-separated keys such
+ * as {@code products/blobs/e4/e1/<sha256>.png}. Writes are staged in a local file first
+ * so content can be hashed and validated before anything becomes visible under its key.
+ */
+public interface BlobStore {
+
+    /**
+     * @return a new empty local file to write content into before {@link #put}
+     */
+    Path createStagingFile() throws IOException;
+
+    /**
+     * Publishes a staged file under the key, replacing any existing object. The store
+     * takes ownership of the staged file, which may be moved rather than copied.
+     */
+    void put(String key, Path stagedFile, String contentType) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    /**
+     * @return a local file holding the object's content, or empty if there is no such object
+     */
+    Optional<Path> getLocalFile(String key) throws IOException;
+
+    /**
+     * @return a short-lived URL clients can fetch the object from directly, if the backend supports one
+     */
+    default Optional<URI> getDirectUrl(String key) {
+        return Optional.empty();
+    }
+
+    void delete(String key) throws IOException;
+
+    /**
+     * Lists the objects under a key prefix. The stream is read lazily and must be closed.
+     */
+    Stream<BlobInfo> list(String prefix) throws IOException;
+
+    @Getter
+    @AllArgsConstructor
+    final class BlobInfo {
+        private final String key;
+        private final long size;
+        private final Instant lastModified;
+    }
+}
@@ -0,0 +1,224 @@
+package com.cosmetics.ecommerce.storage;
+
+import com.cosmetics.ecommerce.dto.HotAssetCacheStatsDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the bytes of the most requested immutable files in direct buffers, so hot images are
+ * served without reading the filesystem. It saves the disk read, not the copy: Tomcat still
+ * copies the buffer through its heap output buffer, whereas an uncached file can go out by
+ * sendfile without entering the JVM. Only files that have been requested
+ * {@code admit-after-hits} times recently are admitted, counted in a small frequency sketch,
+ * and the least recently used entries are evicted to stay within the memory budget. Entries
+ * are keyed by public name; uploads are content-addressed, so an entry can only become stale
+ * when the file is deleted.
+ */
+@Component
+public class HotAssetCache {
+
+    private static final int SKETCH_SIZE = 1 << 14;
+    private static final int MAX_FREQUENCY = 15;
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final int admitAfterHits;
+
+    // Access-ordered, guarded by lock; a lock rather than a monitor so waiting virtual threads do not pin a carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Asset> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long residentBytes;
+
+    // Approximate recent request counts; halved every SKETCH_SIZE increments so popularity ages out
+    private final AtomicIntegerArray sketch = new AtomicIntegerArray(SKETCH_SIZE);
+    private final AtomicLong sketchIncrements = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder admissions = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public HotAssetCache(@Value("${file.hot-cache.max-mb}") long maxMb,
+                         @Value("${file.hot-cache.max-entry-kb}") long maxEntryKb,
+                         @Value("${file.hot-cache.admit-after-hits}") int admitAfterHits) {
+        this.maxBytes = maxMb * 1024L * 1024L;
+        this.maxEntryBytes = Math.min(maxEntryKb * 1024L, this.maxBytes);
+        this.admitAfterHits = Math.min(Math.max(1, admitAfterHits), MAX_FREQUENCY);
+    }
+
+    public Asset get(String name) {
+        if (maxBytes == 0) {
+            return null;
+        }
+        Asset asset;
+        lock.lock();
+        try {
+            asset = entries.get(name);
+        } finally {
+            lock.unlock();
+        }
+        if (asset != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return asset;
+    }
+
+    /**
+     * Records a miss on {@code name} and, once it has been requested often enough, loads the file
+     * into the cache.
+     *
+     * @return the cached asset, or {@code null} if the file was not admitted
+     */
+    public Asset admit(String name, Path file, long length, long lastModified, String etag, String contentType)
+            throws IOException {
+        if (maxBytes == 0 || length == 0 || length > maxEntryBytes || recordRequest(name) < admitAfterHits) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) length);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    // Shrunk while being read; serve it from disk this time
+                    return null;
+                }
+            }
+        }
+        buffer.flip();
+        Asset asset = new Asset(buffer.asReadOnlyBuffer(), contentType, lastModified, etag);
+
+        lock.lock();
+        try {
+            Asset existing = entries.get(name);
+            if (existing != null) {
+                return existing;
+            }
+            entries.put(name, asset);
+            residentBytes += length;
+            // Evicted buffers still held by in-flight responses stay valid; the collector frees them after
+            Iterator<Asset> eldest = entries.values().iterator();
+            while (residentBytes > maxBytes && eldest.hasNext()) {
+                residentBytes -= eldest.next().getLength();
+                eldest.remove();
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+        admissions.increment();
+        return asset;
+    }
+
+    /**
+     * Drops a file and all of its variants.
+     */
+    public void invalidate(String fileName) {
+        String variantPrefix = variantKey(fileName, "");
+        lock.lock();
+        try {
+            Iterator<Map.Entry<String, Asset>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Asset> entry = iterator.next();
+                String key = entry.getKey();
+                if (key.equals(fileName) || key.startsWith(variantPrefix)) {
+                    residentBytes -= entry.getValue().getLength();
+                    iterator.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public HotAssetCacheStatsDto getStats() {
+        int count;
+        long resident;
+        lock.lock();
+        try {
+            count = entries.size();
+            resident = residentBytes;
+        } finally {
+            lock.unlock();
+        }
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        return new HotAssetCacheStatsDto(count, resident, maxBytes, hitCount, lookups - hitCount,
+                lookups == 0 ? 0 : (double) hitCount / lookups, admissions.sum(), evictions.sum());
+    }
+
+    /**
+     * @return the cache key of a variant of {@code fileName}
+     */
+    public static String variantKey(String fileName, String variant) {
+        return fileName + "?variant=" + variant;
+    }
+
+    private int recordRequest(String name) {
+        int hash = name.hashCode() * 0x9E3779B9;
+        int first = increment(hash >>> 18);
+        int second = increment((hash >>> 4) & (SKETCH_SIZE - 1));
+        if (sketchIncrements.incrementAndGet() % SKETCH_SIZE == 0) {
+            for (int i = 0; i < SKETCH_SIZE; i++) {
+                sketch.set(i, sketch.get(i) >>> 1);
+            }
+        }
+        // Both slots over-count on collisions, so the smaller one is the better estimate
+        return Math.min(first, second);
+    }
+
+    private int increment(int slot) {
+        return sketch.accumulateAndGet(slot, 1, (count, one) -> Math.min(count + one, MAX_FREQUENCY));
+    }
+
+    /**
+     * A cached file. The content buffer is shared; callers must work on {@link #getContent() their own view}.
+     */
+    public static final class Asset {
+        private final ByteBuffer content;
+        private final String contentType;
+        private final long lastModified;
+        private final String etag;
+
+        Asset(ByteBuffer content, String contentType, long lastModified, String etag) {
+            this.content = content;
+            this.contentType = contentType;
+            this.lastModified = lastModified;
+            this.etag = etag;
+        }
+
+        public ByteBuffer getContent() {
+            return content.duplicate();
+        }
+
+        public long getLength() {
+            return content.capacity();
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.cosmetics.ecommerce.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Keys map to files under {@code file.storage.local.root}. Staging files are created
+ * inside the root, so publishing one is a rename on the same filesystem.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalBlobStore implements BlobStore {
+
+    private final Path root;
+    private final Path stagingDir;
+
+    public LocalBlobStore(@Value("${file.storage.local.root}") String root) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.stagingDir = this.root.resolve(".staging");
+    }
+
+    @Override
+    public Path createStagingFile() throws IOException {
+        Files.createDirectories(stagingDir);
+        return Files.createTempFile(stagingDir, "blob-", ".tmp");
+    }
+
+    @Override
+    public void put(String key, Path stagedFile, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(stagedFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            // The shard directory was pruned by a concurrent delete
+            Files.createDirectories(target.getParent());
+            Files.move(stagedFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Staged outside the root (another filesystem); copy into place under a temporary name first
+            Path temp = Files.createTempFile(target.getParent(), ".blob-", ".tmp");
+            Files.move(stagedFile, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public Optional<Path> getLocalFile(String key) {
+        Path file = resolve(key);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Path file = resolve(key);
+        if (!Files.deleteIfExists(file)) {
+            return;
+        }
+        // Prune emptied shard directories so scans of the tree do not keep growing
+        for (Path dir = file.getParent(); !dir.equals(root); dir = dir.getParent()) {
+            try {
+                Files.delete(dir);
+            } catch (DirectoryNotEmptyException e) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public Stream<BlobInfo> list(String prefix) throws IOException {
+        Path start = root.resolve(prefix).normalize();
+        if (!start.startsWith(root) || !Files.isDirectory(start)) {
+            return Stream.empty();
+        }
+        return Files.walk(start)
+                // Skips staged uploads and files still being moved into place
+                .filter(file -> !file.startsWith(stagingDir) && !file.getFileName().toString().startsWith("."))
+                .filter(Files::isRegularFile)
+                .<BlobInfo>mapMulti((file, downstream) -> {
+                    try {
+                        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                        String key = root.relativize(file).toString().replace(File.separatorChar, '/');
+                        downstream.accept(new BlobInfo(key, attributes.size(), attributes.lastModifiedTime().toInstant()));
+                    } catch (NoSuchFileException e) {
+                        // Deleted since the directory was read
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private Path resolve(String key) {
+        Path file = root.resolve(key).normalize();
+        if (!file.startsWith(root) || file.equals(root)) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,192 @@
+package com.cosmetics.ecommerce.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded LRU of remote objects kept on local disk, so hot images are served from
+ * a file (and by sendfile) instead of being fetched per request. The cache starts empty
+ * on every boot.
+ * <p>
+ * A path handed out by {@link #get} may only be opened once the servlet has returned
+ * (Tomcat starts sendfile after that), so evicted files are deleted a minute
+ * later rather than right away, and every adopted file gets a name of its own so a
+ * replacement is never deleted in place of the file it replaced.
+ */
+class LocalDiskCache {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalDiskCache.class);
+
+    // Long enough for any response that looked the file up to have opened it; open files survive deletion
+    private static final long RETIRE_DELAY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Path dir;
+    private final long maxBytes;
+
+    // Guarded by lock; access order, so iteration starts at the least recently used entry
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+    // Guarded by lock; evicted files in eviction order, waiting out the retire delay
+    private final ArrayDeque<Retired> retired = new ArrayDeque<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    LocalDiskCache(Path dir, long maxBytes) throws IOException {
+        this.dir = dir.toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        clear();
+        Files.createDirectories(this.dir);
+    }
+
+    Path createTempFile() throws IOException {
+        return Files.createTempFile(dir, "download-", ".tmp");
+    }
+
+    Path get(String key) {
+        Entry entry;
+        lock.lock();
+        try {
+            entry = entries.get(key);
+        } finally {
+            lock.unlock();
+        }
+        if (entry == null) {
+            return null;
+        }
+        // Checked outside the lock so a slow disk does not stall every other lookup
+        if (!Files.isRegularFile(entry.path)) {
+            lock.lock();
+            try {
+                if (entries.remove(key, entry)) {
+                    totalBytes -= entry.size;
+                }
+            } finally {
+                lock.unlock();
+            }
+            return null;
+        }
+        return entry.path;
+    }
+
+    /**
+     * Moves a complete local file into the cache under the key.
+     */
+    Path adopt(String key, Path file) throws IOException {
+        Path target = dir.resolve(Integer.toHexString(key.hashCode() & 0xFF))
+                .resolve(Long.toString(sequence.incrementAndGet(), 36) + "-" + key.replace('/', '_'));
+        Files.createDirectories(target.getParent());
+        Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+        long size = Files.size(target);
+
+        List<Path> expired;
+        lock.lock();
+        try {
+            Entry previous = entries.put(key, new Entry(target, size));
+            if (previous != null) {
+                totalBytes -= previous.size;
+                retire(previous.path);
+            }
+            totalBytes += size;
+
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Entry> evicted = eldest.next();
+                if (evicted.getKey().equals(key)) {
+                    continue;
+                }
+                eldest.remove();
+                totalBytes -= evicted.getValue().size;
+                retire(evicted.getValue().path);
+            }
+            expired = takeExpired();
+        } finally {
+            lock.unlock();
+        }
+        expired.forEach(this::deleteQuietly);
+        return target;
+    }
+
+    void evict(String key) {
+        List<Path> expired;
+        lock.lock();
+        try {
+            Entry entry = entries.remove(key);
+            if (entry != null) {
+                totalBytes -= entry.size;
+                retire(entry.path);
+            }
+            expired = takeExpired();
+        } finally {
+            lock.unlock();
+        }
+        expired.forEach(this::deleteQuietly);
+    }
+
+    // Caller holds lock
+    private void retire(Path path) {
+        retired.addLast(new Retired(path, System.nanoTime()));
+    }
+
+    // Caller holds lock; the files are deleted after it is released
+    private List<Path> takeExpired() {
+        List<Path> expired = new ArrayList<>();
+        long now = System.nanoTime();
+        while (!retired.isEmpty() && now - retired.peekFirst().retiredAt >= RETIRE_DELAY_NANOS) {
+            expired.add(retired.pollFirst().path);
+        }
+        return expired;
+    }
+
+    private void clear() throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).filter(path -> !path.equals(dir)).forEach(this::deleteQuietly);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete cached blob {}", path, e);
+        }
+    }
+
+    private static final class Retired {
+        final Path path;
+        final long retiredAt;
+
+        Retired(Path path, long retiredAt) {
+            this.path = path;
+            this.retiredAt = retiredAt;
+        }
+    }
+
+    private static final class Entry {
+        final Path path;
+        final long size;
+
+        Entry(Path path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+    }
+}
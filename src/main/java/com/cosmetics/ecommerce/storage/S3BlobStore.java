@@ -0,0 +1,272 @@
+package com.cosmetics.ecommerce.storage;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Objects in an S3-compatible bucket. Point {@code file.storage.s3.endpoint} at a local
+ * stand-in such as MinIO (with path-style access) to run without AWS. Reads go through a
+ * {@link LocalDiskCache}; with {@code redirect-reads} enabled clients are instead sent to
+ * presigned URLs and the app never proxies image bytes. Keys seen to exist are remembered,
+ * so serving a redirect does not cost a HEAD request to the bucket each time.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.type", havingValue = "s3")
+public class S3BlobStore implements BlobStore, DisposableBean {
+
+    // Keys remembered as existing; one deleted by another node's sweep was unreferenced, so a stale entry is harmless
+    private static final int MAX_KNOWN_KEYS = 65_536;
+
+    private final S3Client s3;
+    private final S3Presigner presigner;
+    private final String bucket;
+    private final long partSize;
+    private final boolean redirectReads;
+    private final Duration presignTtl;
+    private final LocalDiskCache cache;
+
+    // Guarded by knownKeysLock; access order, so the least recently used key is dropped first
+    private final ReentrantLock knownKeysLock = new ReentrantLock();
+    private final LinkedHashMap<String, Boolean> knownKeys = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_KNOWN_KEYS;
+        }
+    };
+
+    public S3BlobStore(@Value("${file.storage.s3.bucket}") String bucket,
+                       @Value("${file.storage.s3.region}") String region,
+                       @Value("${file.storage.s3.endpoint}") String endpoint,
+                       @Value("${file.storage.s3.path-style-access}") boolean pathStyleAccess,
+                       @Value("${file.storage.s3.access-key}") String accessKey,
+                       @Value("${file.storage.s3.secret-key}") String secretKey,
+                       @Value("${file.storage.s3.part-size-mb}") int partSizeMb,
+                       @Value("${file.storage.s3.redirect-reads}") boolean redirectReads,
+                       @Value("${file.storage.s3.presign-ttl-seconds}") long presignTtlSeconds,
+                       @Value("${file.storage.s3.cache-dir}") String cacheDir,
+                       @Value("${file.storage.s3.cache-max-mb}") long cacheMaxMb) throws IOException {
+        if (!StringUtils.hasText(bucket)) {
+            throw new IllegalStateException("file.storage.s3.bucket must be set when file.storage.type=s3");
+        }
+        // S3 rejects multipart parts below 5MB, except the last
+        if (partSizeMb < 5) {
+            throw new IllegalStateException("file.storage.s3.part-size-mb must be at least 5");
+        }
+        this.bucket = bucket;
+        this.partSize = partSizeMb * 1024L * 1024L;
+        this.redirectReads = redirectReads;
+        this.presignTtl = Duration.ofSeconds(presignTtlSeconds);
+        this.cache = new LocalDiskCache(Paths.get(cacheDir), cacheMaxMb * 1024L * 1024L);
+
+        AwsCredentialsProvider credentials = StringUtils.hasText(accessKey)
+                ? StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey))
+                : DefaultCredentialsProvider.create();
+        S3Configuration serviceConfiguration = S3Configuration.builder()
+                .pathStyleAccessEnabled(pathStyleAccess)
+                .build();
+        URI endpointOverride = StringUtils.hasText(endpoint) ? URI.create(endpoint) : null;
+
+        var clientBuilder = S3Client.builder()
+                .httpClient(UrlConnectionHttpClient.create())
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(serviceConfiguration);
+        var presignerBuilder = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(serviceConfiguration);
+        if (endpointOverride != null) {
+            clientBuilder.endpointOverride(endpointOverride);
+            presignerBuilder.endpointOverride(endpointOverride);
+        }
+        this.s3 = clientBuilder.build();
+        this.presigner = presignerBuilder.build();
+    }
+
+    @Override
+    public Path createStagingFile() throws IOException {
+        return cache.createTempFile();
+    }
+
+    @Override
+    public void put(String key, Path stagedFile, String contentType) throws IOException {
+        long size = Files.size(stagedFile);
+        try {
+            if (size <= partSize) {
+                s3.putObject(request -> request.bucket(bucket).key(key).contentType(contentType),
+                        RequestBody.fromFile(stagedFile));
+            } else {
+                putMultipart(key, stagedFile, size, contentType);
+            }
+        } catch (SdkException e) {
+            throw new IOException("Could not upload " + key, e);
+        }
+        remember(key);
+        // Just written, so likely read next (variant generation, first views)
+        cache.adopt(key, stagedFile);
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        if (isKnown(key) || cache.get(key) != null) {
+            return true;
+        }
+        try {
+            s3.headObject(request -> request.bucket(bucket).key(key));
+            remember(key);
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return false;
+            }
+            throw new IOException("Could not check " + key, e);
+        } catch (SdkException e) {
+            throw new IOException("Could not check " + key, e);
+        }
+    }
+
+    @Override
+    public Optional<Path> getLocalFile(String key) throws IOException {
+        Path cached = cache.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Path download = cache.createTempFile();
+        try (InputStream in = s3.getObject(request -> request.bucket(bucket).key(key))) {
+            Files.copy(in, download, StandardCopyOption.REPLACE_EXISTING);
+        } catch (NoSuchKeyException e) {
+            Files.deleteIfExists(download);
+            return Optional.empty();
+        } catch (SdkException e) {
+            Files.deleteIfExists(download);
+            throw new IOException("Could not download " + key, e);
+        }
+        return Optional.of(cache.adopt(key, download));
+    }
+
+    @Override
+    public Optional<URI> getDirectUrl(String key) {
+        if (!redirectReads) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(presigner.presignGetObject(request -> request
+                            .signatureDuration(presignTtl)
+                            .getObjectRequest(get -> get.bucket(bucket).key(key)))
+                    .url().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        knownKeysLock.lock();
+        try {
+            knownKeys.remove(key);
+        } finally {
+            knownKeysLock.unlock();
+        }
+        cache.evict(key);
+        try {
+            s3.deleteObject(request -> request.bucket(bucket).key(key));
+        } catch (SdkException e) {
+            throw new IOException("Could not delete " + key, e);
+        }
+    }
+
+    @Override
+    public Stream<BlobInfo> list(String prefix) {
+        // Pages are fetched as the stream is consumed
+        return s3.listObjectsV2Paginator(request -> request.bucket(bucket).prefix(prefix))
+                .contents()
+                .stream()
+                .map(object -> new BlobInfo(object.key(), object.size(), object.lastModified()));
+    }
+
+    @Override
+    public void destroy() {
+        presigner.close();
+        s3.close();
+    }
+
+    private boolean isKnown(String key) {
+        knownKeysLock.lock();
+        try {
+            return knownKeys.get(key) != null;
+        } finally {
+            knownKeysLock.unlock();
+        }
+    }
+
+    private void remember(String key) {
+        knownKeysLock.lock();
+        try {
+            knownKeys.put(key, Boolean.TRUE);
+        } finally {
+            knownKeysLock.unlock();
+        }
+    }
+
+    // Streams the file in part-sized chunks, so only one part is ever held in memory
+    private void putMultipart(String key, Path file, long size, String contentType) throws IOException {
+        String uploadId = s3.createMultipartUpload(request -> request.bucket(bucket).key(key).contentType(contentType))
+                .uploadId();
+        try (InputStream in = Files.newInputStream(file)) {
+            List<CompletedPart> parts = new ArrayList<>();
+            byte[] buffer = new byte[(int) partSize];
+            for (int partNumber = 1; (long) (partNumber - 1) * partSize < size; partNumber++) {
+                int length = in.readNBytes(buffer, 0, buffer.length);
+                int number = partNumber;
+                String etag = s3.uploadPart(request -> request.bucket(bucket).key(key)
+                                .uploadId(uploadId).partNumber(number).contentLength((long) length),
+                        RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length))
+                        .eTag();
+                parts.add(CompletedPart.builder().partNumber(number).eTag(etag).build());
+            }
+            s3.completeMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build()));
+        } catch (IOException | SdkException e) {
+            s3.abortMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId));
+            throw e;
+        }
+    }
+}
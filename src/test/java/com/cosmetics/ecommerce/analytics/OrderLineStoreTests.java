@@ -0,0 +1,73 @@
+package com.cosmetics.ecommerce.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderLineStoreTests {
+
+	// 2024-06-03 was a Monday
+	private static final LocalDate MONDAY = LocalDate.of(2024, 6, 3);
+
+	@Test
+	void groupsRevenueByCategoryAndWeekdayWithPriceFilter() {
+		OrderLineStore store = new OrderLineStore();
+		store.append(1, 10, MONDAY, 2, new BigDecimal("35.00"), new BigDecimal("70.00"));
+		store.append(2, 10, MONDAY, 1, new BigDecimal("20.00"), new BigDecimal("20.00"));
+		store.append(3, 20, MONDAY.plusDays(1), 3, new BigDecimal("40.00"), new BigDecimal("120.00"));
+		store.append(1, 10, MONDAY.plusDays(7), 1, new BigDecimal("35.00"), new BigDecimal("35.00"));
+
+		OrderLineQuery query = new OrderLineQuery();
+		query.setGroupBy(List.of(OrderLineQuery.Dimension.CATEGORY, OrderLineQuery.Dimension.WEEKDAY));
+		query.setMinUnitPriceCents(3000L);
+
+		OrderLineQueryResult result = store.query(query);
+
+		assertThat(result.getRowsScanned()).isEqualTo(4);
+		assertThat(result.getRowsMatched()).isEqualTo(3);
+		assertThat(result.getGroups()).hasSize(2);
+
+		OrderLineQueryResult.Group top = result.getGroups().get(0);
+		assertThat(top.getKeys()).containsExactly(20, 2);
+		assertThat(top.getRevenueCents()).isEqualTo(12000);
+
+		OrderLineQueryResult.Group second = result.getGroups().get(1);
+		assertThat(second.getKeys()).containsExactly(10, 1);
+		assertThat(second.getOrderLines()).isEqualTo(2);
+		assertThat(second.getUnitsSold()).isEqualTo(3);
+		assertThat(second.getRevenueCents()).isEqualTo(10500);
+	}
+
+	@Test
+	void appliesDateRangeAndLimitAcrossChunks() {
+		OrderLineStore store = new OrderLineStore();
+		int rows = 200_000;
+		for (int i = 0; i < rows; i++) {
+			store.append(1 + (i % 50), 1 + (i % 5), MONDAY.plusDays(i % 30), 1,
+					BigDecimal.TEN, BigDecimal.TEN);
+		}
+
+		OrderLineQuery query = new OrderLineQuery();
+		query.setFromDay(Math.toIntExact(MONDAY.toEpochDay()));
+		query.setToDay(Math.toIntExact(MONDAY.plusDays(9).toEpochDay()));
+		query.setGroupBy(List.of(OrderLineQuery.Dimension.PRODUCT));
+		query.setLimit(5);
+
+		OrderLineQueryResult result = store.query(query);
+
+		long expectedMatches = 0;
+		for (int i = 0; i < rows; i++) {
+			if (i % 30 < 10) {
+				expectedMatches++;
+			}
+		}
+		assertThat(result.getRowsMatched()).isEqualTo(expectedMatches);
+		assertThat(result.getGroups()).hasSize(5);
+		assertThat(result.getGroups().stream().mapToLong(OrderLineQueryResult.Group::getRevenueCents))
+				.isSortedAccordingTo((a, b) -> Long.compare(b, a));
+	}
+}
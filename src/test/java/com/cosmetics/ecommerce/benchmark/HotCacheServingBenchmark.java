@@ -0,0 +1,214 @@
+package com.cosmetics.ecommerce.benchmark;
+
+import com.cosmetics.ecommerce.EcommerceApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load on {@code GET /api/files/{name}} for one uploaded image, once served by
+ * sendfile from disk ({@code file.hot-cache.max-mb=0}) and once from the off-heap hot cache,
+ * which Tomcat copies through its heap output buffer. Prints throughput, latency percentiles
+ * and process CPU per request; the clients share the JVM, so CPU is only comparable between
+ * the two modes. Plain HTTP/1.1 on the NIO connector, where sendfile is available.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.cosmetics.ecommerce.benchmark.HotCacheServingBenchmark -Dexec.classpathScope=test}.
+ * Optional system properties: {@code modes} (default sendfile,hot-cache), {@code clients}
+ * (default 16,128), {@code imageSide} (pixels of random noise, default 480, about 700KB as PNG),
+ * {@code warmupSeconds} (default 5) and {@code seconds} (default 10).
+ */
+public class HotCacheServingBenchmark {
+
+	private static final ObjectMapper JSON = new ObjectMapper();
+
+	public static void main(String[] args) throws Exception {
+		int[] clientCounts = Arrays.stream(System.getProperty("clients", "16,128").split(","))
+				.mapToInt(Integer::parseInt).toArray();
+		int side = Integer.getInteger("imageSide", 480);
+		Duration warmup = Duration.ofSeconds(Long.getLong("warmupSeconds", 5));
+		Duration measurement = Duration.ofSeconds(Long.getLong("seconds", 10));
+		byte[] image = noise(side);
+
+		List<String> results = new ArrayList<>();
+		for (String mode : System.getProperty("modes", "sendfile,hot-cache").split(",")) {
+			Path uploads = Files.createTempDirectory("hot-cache-benchmark");
+			ConfigurableApplicationContext context = new SpringApplicationBuilder(EcommerceApplication.class).run(
+					"--server.port=0",
+					"--file.storage.local.root=" + uploads,
+					"--file.hot-cache.max-mb=" + (mode.equals("hot-cache") ? 64 : 0),
+					"--file.hot-cache.max-entry-kb=4096",
+					"--file.hot-cache.admit-after-hits=1",
+					"--spring.jpa.show-sql=false",
+					"--logging.level.root=WARN",
+					"--logging.level.org.springframework.security=WARN",
+					"--logging.level.com.cosmetics.ecommerce=WARN",
+					"--logging.level.org.hibernate.SQL=WARN",
+					"--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+					"--rate-limit.enabled=false",
+					"--concurrency-limit.enabled=false",
+					"--file.cleanup.enabled=false",
+					"--management.server.port=0");
+			try {
+				String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+				URI file = URI.create(base + "/api/files/" + upload(base, image));
+				for (int clients : clientCounts) {
+					run(file, clients, warmup);
+					Result result = run(file, clients, measurement);
+					results.add(String.format("%-9s %7d %8d %12.0f %9.2f %9.2f %12.1f %8d",
+							mode, clients, image.length / 1024, result.throughput(), result.percentile(0.50),
+							result.percentile(0.99), result.cpuMicrosPerRequest(), result.errors));
+				}
+			} finally {
+				context.close();
+			}
+		}
+
+		System.out.println();
+		System.out.println("mode      clients   size KB  requests/s   p50 ms    p99 ms  cpu us/req   errors");
+		results.forEach(System.out::println);
+	}
+
+	// Random pixels, so PNG cannot compress the file below its raw size
+	private static byte[] noise(int side) throws Exception {
+		BufferedImage image = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+		Random random = new Random(42);
+		for (int y = 0; y < side; y++) {
+			for (int x = 0; x < side; x++) {
+				image.setRGB(x, y, random.nextInt(1 << 24));
+			}
+		}
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", png);
+		return png.toByteArray();
+	}
+
+	private static String upload(String base, byte[] image) throws Exception {
+		HttpClient http = HttpClient.newHttpClient();
+		String adminLogin = "{\"username\":\"admin\",\"password\":\"admin123\"}";
+		HttpResponse<String> admin = http.send(HttpRequest.newBuilder(URI.create(base + "/api/auth/login"))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(adminLogin)).build(), HttpResponse.BodyHandlers.ofString());
+		String adminToken = JSON.readTree(admin.body()).get("token").asText();
+
+		String boundary = "benchmark-boundary";
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		body.write(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"noise.png\"\r\n"
+				+ "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+		body.write(image);
+		body.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+		HttpResponse<String> uploaded = http.send(
+				HttpRequest.newBuilder(URI.create(base + "/api/admin/upload/product-image"))
+						.header("Content-Type", "multipart/form-data; boundary=" + boundary)
+						.header("Authorization", "Bearer " + adminToken)
+						.POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray())).build(),
+				HttpResponse.BodyHandlers.ofString());
+		if (uploaded.statusCode() != 200) {
+			throw new IllegalStateException("Upload failed: " + uploaded.body());
+		}
+		return JSON.readTree(uploaded.body()).get("fileName").asText();
+	}
+
+	private static Result run(URI file, int clients, Duration duration) throws Exception {
+		HttpClient http = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.executor(Executors.newVirtualThreadPerTaskExecutor())
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+		HttpRequest request = HttpRequest.newBuilder(file).timeout(Duration.ofSeconds(30)).build();
+		com.sun.management.OperatingSystemMXBean os =
+				(com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+		long deadline = System.nanoTime() + duration.toNanos();
+		long cpuStart = os.getProcessCpuTime();
+		AtomicLong errors = new AtomicLong();
+		List<Future<long[]>> latencies = new ArrayList<>();
+		try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < clients; i++) {
+				latencies.add(pool.submit(() -> client(http, request, deadline, errors)));
+			}
+		}
+		long cpuNanos = os.getProcessCpuTime() - cpuStart;
+
+		long[] all = new long[0];
+		for (Future<long[]> latency : latencies) {
+			long[] samples = latency.get();
+			int offset = all.length;
+			all = Arrays.copyOf(all, offset + samples.length);
+			System.arraycopy(samples, 0, all, offset, samples.length);
+		}
+		Arrays.sort(all);
+		return new Result(all, duration, cpuNanos, errors.get());
+	}
+
+	private static long[] client(HttpClient http, HttpRequest request, long deadline, AtomicLong errors) {
+		long[] samples = new long[1024];
+		int count = 0;
+		while (System.nanoTime() < deadline) {
+			long start = System.nanoTime();
+			try {
+				HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+				if (response.statusCode() != 200) {
+					errors.incrementAndGet();
+				}
+			} catch (Exception e) {
+				errors.incrementAndGet();
+			}
+			if (count == samples.length) {
+				samples = Arrays.copyOf(samples, count * 2);
+			}
+			samples[count++] = System.nanoTime() - start;
+		}
+		return Arrays.copyOf(samples, count);
+	}
+
+	private static final class Result {
+		private final long[] sortedNanos;
+		private final Duration duration;
+		private final long cpuNanos;
+		private final long errors;
+
+		Result(long[] sortedNanos, Duration duration, long cpuNanos, long errors) {
+			this.sortedNanos = sortedNanos;
+			this.duration = duration;
+			this.cpuNanos = cpuNanos;
+			this.errors = errors;
+		}
+
+		double throughput() {
+			return sortedNanos.length / (duration.toNanos() / 1e9);
+		}
+
+		double cpuMicrosPerRequest() {
+			return sortedNanos.length == 0 ? 0 : cpuNanos / 1e3 / sortedNanos.length;
+		}
+
+		double percentile(double p) {
+			if (sortedNanos.length == 0) {
+				return 0;
+			}
+			int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(p * sortedNanos.length) - 1);
+			return sortedNanos[Math.max(0, index)] / 1e6;
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.cosmetics.ecommerce.benchmark;
+
+import com.cosmetics.ecommerce.security.AuthenticatedUser;
+import com.cosmetics.ecommerce.security.JwtAuthenticationFilter;
+import com.cosmetics.ecommerce.security.JwtTokenProvider;
+import com.cosmetics.ecommerce.security.JwtTokenVerifier;
+import com.cosmetics.ecommerce.security.SigningKeyStore;
+import com.cosmetics.ecommerce.security.TokenDenyList;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of turning a bearer token into an authentication. Run with
+ * {@code mvn test-compile exec:java -Dexec.mainClass=com.cosmetics.ecommerce.benchmark.JwtVerificationBenchmark -Dexec.classpathScope=test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+	private static final String SECRET = "benchmarkSecretKeyThatIsLongEnoughForHmacSha256Signing";
+
+	private String token;
+	private String hmacToken;
+	private JwtTokenProvider provider;
+	private JwtAuthenticationFilter uncachedFilter;
+	private JwtAuthenticationFilter cachedFilter;
+
+	@Setup
+	public void setUp() throws IOException {
+		long lifetime = TimeUnit.HOURS.toMillis(1);
+		String keyDirectory = Files.createTempDirectory("jwt-keys").toString();
+		provider = new JwtTokenProvider(new SigningKeyStore(keyDirectory, lifetime, lifetime, 0), lifetime);
+		List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_ADMIN"));
+		AuthenticatedUser admin = new AuthenticatedUser(1L, "admin", null, authorities, true);
+		token = provider.generateToken(new UsernamePasswordAuthenticationToken(admin, "", authorities));
+		hmacToken = Jwts.builder()
+				.setSubject("admin")
+				.claim("auth", "ROLE_ADMIN")
+				.setExpiration(new Date(System.currentTimeMillis() + lifetime))
+				.signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+				.compact();
+		uncachedFilter = new JwtAuthenticationFilter(new JwtTokenVerifier(provider, new TokenDenyList(1 << 16), 0, new SimpleMeterRegistry()));
+		cachedFilter = new JwtAuthenticationFilter(new JwtTokenVerifier(provider, new TokenDenyList(1 << 16), 10_000, new SimpleMeterRegistry()));
+	}
+
+	/** The original HS256 path: key and parser rebuilt per call, token parsed once to validate and again to read claims. */
+	@Benchmark
+	public Authentication validateThenParse() {
+		byte[] keyBytes = SECRET.getBytes(StandardCharsets.UTF_8);
+		Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(keyBytes)).build().parseClaimsJws(hmacToken);
+		Claims claims = Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(keyBytes)).build()
+				.parseClaimsJws(hmacToken).getBody();
+		return new UsernamePasswordAuthenticationToken(claims.getSubject(), "",
+				List.of(new SimpleGrantedAuthority(claims.get("auth", String.class))));
+	}
+
+	/** ES256 with the key resolved by kid. */
+	@Benchmark
+	public Authentication singleParse() {
+		return provider.getAuthentication(token);
+	}
+
+	@Benchmark
+	public Authentication filterUncached() throws Exception {
+		return runFilter(uncachedFilter);
+	}
+
+	@Benchmark
+	public Authentication filterCached() throws Exception {
+		return runFilter(cachedFilter);
+	}
+
+	private Authentication runFilter(JwtAuthenticationFilter filter) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cart");
+		request.addHeader("Authorization", "Bearer " + token);
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		SecurityContextHolder.clearContext();
+		return authentication;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(JwtVerificationBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,214 @@
+package com.cosmetics.ecommerce.benchmark;
+
+import com.cosmetics.ecommerce.EcommerceApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load against the running application, once with request handling on platform
+ * threads and once on virtual threads ({@code spring.threads.virtual.enabled}). Each simulated
+ * client repeatedly browses the catalog and reads its cart, so every request goes through JWT
+ * or anonymous security, Hibernate and the connection pool. Prints throughput and latency
+ * percentiles per mode and concurrency level. Rate and concurrency limiting are switched off
+ * so the comparison measures the execution model rather than load shedding.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.cosmetics.ecommerce.benchmark.VirtualThreadLoadBenchmark -Dexec.classpathScope=test}.
+ * Optional system properties: {@code modes} (default platform,virtual), {@code clients}
+ * (comma-separated concurrency levels, default 50,400), {@code warmupSeconds} (default 10) and
+ * {@code seconds} (default 15). Both modes share one JVM, so swap {@code modes} around to check
+ * the second run is not just benefiting from a warmer JIT. Add
+ * {@code -Djdk.tracePinnedThreads=short} to the JVM to report virtual threads pinned while blocking.
+ */
+public class VirtualThreadLoadBenchmark {
+
+	private static final ObjectMapper JSON = new ObjectMapper();
+	private static final int PRODUCTS = 60;
+
+	public static void main(String[] args) throws Exception {
+		int[] clientCounts = Arrays.stream(System.getProperty("clients", "50,400").split(","))
+				.mapToInt(Integer::parseInt).toArray();
+		Duration warmup = Duration.ofSeconds(Long.getLong("warmupSeconds", 10));
+		Duration measurement = Duration.ofSeconds(Long.getLong("seconds", 15));
+
+		List<String> results = new ArrayList<>();
+		for (String mode : System.getProperty("modes", "platform,virtual").split(",")) {
+			boolean virtual = mode.equals("virtual");
+			// Arguments rather than default properties, so they win over application.properties
+			ConfigurableApplicationContext context = new SpringApplicationBuilder(EcommerceApplication.class).run(
+					"--server.port=0",
+					"--spring.threads.virtual.enabled=" + virtual,
+					"--spring.jpa.show-sql=false",
+					"--logging.level.root=WARN",
+					"--logging.level.org.springframework.security=WARN",
+					"--logging.level.com.cosmetics.ecommerce=WARN",
+					"--logging.level.org.hibernate.SQL=WARN",
+					"--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+					"--rate-limit.enabled=false",
+					"--concurrency-limit.enabled=false",
+					"--file.cleanup.enabled=false",
+					"--management.server.port=0");
+			try {
+				String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+				Workload workload = Workload.prepare(base);
+				for (int clients : clientCounts) {
+					workload.run(clients, warmup);
+					Result result = workload.run(clients, measurement);
+					results.add(String.format("%-9s %7d %12.0f %9.2f %9.2f %9.2f %8d",
+							mode, clients, result.throughput(), result.percentile(0.50), result.percentile(0.99),
+							result.percentile(0.999), result.errors));
+				}
+			} finally {
+				context.close();
+			}
+		}
+
+		System.out.println();
+		System.out.println("mode      clients  requests/s   p50 ms    p99 ms  p99.9 ms   errors");
+		results.forEach(System.out::println);
+	}
+
+	private static final class Workload {
+
+		private final HttpClient http = HttpClient.newBuilder()
+				.executor(Executors.newVirtualThreadPerTaskExecutor())
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+		private final String base;
+		private final String token;
+		private final long[] productIds;
+
+		private Workload(String base, String token, long[] productIds) {
+			this.base = base;
+			this.token = token;
+			this.productIds = productIds;
+		}
+
+		static Workload prepare(String base) throws Exception {
+			HttpClient http = HttpClient.newHttpClient();
+			String register = "{\"username\":\"loadtest\",\"email\":\"loadtest@example.com\",\"password\":\"loadtest123\","
+					+ "\"fullName\":\"Load Test\",\"phoneNumber\":\"0123456789\",\"address\":\"1 Bench Street\"}";
+			HttpResponse<String> registered = http.send(HttpRequest.newBuilder(URI.create(base + "/api/auth/register"))
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString(register)).build(), HttpResponse.BodyHandlers.ofString());
+			if (registered.statusCode() != 200) {
+				throw new IllegalStateException("Registration failed: " + registered.body());
+			}
+			String token = JSON.readTree(registered.body()).get("token").asText();
+
+			// The seed data has categories only; give the catalog something to page through
+			String adminLogin = "{\"username\":\"admin\",\"password\":\"admin123\"}";
+			HttpResponse<String> admin = http.send(HttpRequest.newBuilder(URI.create(base + "/api/auth/login"))
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString(adminLogin)).build(), HttpResponse.BodyHandlers.ofString());
+			String adminToken = JSON.readTree(admin.body()).get("token").asText();
+			List<Long> ids = new ArrayList<>();
+			for (int i = 0; i < PRODUCTS; i++) {
+				String product = "{\"name\":\"Load test cream " + i + "\",\"description\":\"Benchmark product\","
+						+ "\"price\":" + (10 + i) + ".50,\"stockQuantity\":1000,\"categoryId\":" + (1 + i % 3)
+						+ ",\"active\":true}";
+				HttpResponse<String> created = http.send(HttpRequest.newBuilder(URI.create(base + "/api/products"))
+						.header("Content-Type", "application/json")
+						.header("Authorization", "Bearer " + adminToken)
+						.POST(HttpRequest.BodyPublishers.ofString(product)).build(), HttpResponse.BodyHandlers.ofString());
+				if (created.statusCode() != 201) {
+					throw new IllegalStateException("Product creation failed: " + created.body());
+				}
+				ids.add(JSON.readTree(created.body()).get("id").asLong());
+			}
+			return new Workload(base, token, ids.stream().mapToLong(Long::longValue).toArray());
+		}
+
+		Result run(int clients, Duration duration) throws Exception {
+			long deadline = System.nanoTime() + duration.toNanos();
+			AtomicLong errors = new AtomicLong();
+			List<Future<long[]>> latencies = new ArrayList<>();
+			try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+				for (int i = 0; i < clients; i++) {
+					latencies.add(pool.submit(() -> client(deadline, errors)));
+				}
+			}
+
+			long[] all = new long[0];
+			for (Future<long[]> latency : latencies) {
+				long[] samples = latency.get();
+				int offset = all.length;
+				all = Arrays.copyOf(all, offset + samples.length);
+				System.arraycopy(samples, 0, all, offset, samples.length);
+			}
+			Arrays.sort(all);
+			return new Result(all, duration, errors.get());
+		}
+
+		private long[] client(long deadline, AtomicLong errors) {
+			long[] samples = new long[1024];
+			int count = 0;
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			while (System.nanoTime() < deadline) {
+				HttpRequest request = switch (random.nextInt(4)) {
+					case 0 -> get("/api/products?page=" + random.nextInt(3) + "&size=20").build();
+					case 1 -> get("/api/products/" + productIds[random.nextInt(productIds.length)]).build();
+					case 2 -> get("/api/categories").build();
+					default -> get("/api/cart").header("Authorization", "Bearer " + token).build();
+				};
+				long start = System.nanoTime();
+				try {
+					HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+					if (response.statusCode() != 200) {
+						errors.incrementAndGet();
+					}
+				} catch (Exception e) {
+					errors.incrementAndGet();
+				}
+				if (count == samples.length) {
+					samples = Arrays.copyOf(samples, count * 2);
+				}
+				samples[count++] = System.nanoTime() - start;
+			}
+			return Arrays.copyOf(samples, count);
+		}
+
+		private HttpRequest.Builder get(String path) {
+			return HttpRequest.newBuilder(URI.create(base + path)).timeout(Duration.ofSeconds(30));
+		}
+	}
+
+	private static final class Result {
+		private final long[] sortedNanos;
+		private final Duration duration;
+		private final long errors;
+
+		Result(long[] sortedNanos, Duration duration, long errors) {
+			this.sortedNanos = sortedNanos;
+			this.duration = duration;
+			this.errors = errors;
+		}
+
+		double throughput() {
+			return sortedNanos.length / (duration.toNanos() / 1e9);
+		}
+
+		double percentile(double p) {
+			if (sortedNanos.length == 0) {
+				return 0;
+			}
+			int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(p * sortedNanos.length) - 1);
+			return sortedNanos[Math.max(0, index)] / 1e6;
+		}
+	}
+}
@@ -0,0 +1,300 @@
+package com.cosmetics.ecommerce.controller;
+
+import com.cosmetics.ecommerce.config.QueryCounter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Caps the SQL statements each endpoint may execute against a seeded catalog, so an N+1 fails
+ * the build instead of reaching production. Lists hold 20 or more rows, which makes a per-row
+ * query blow any budget below. When a change legitimately needs another query, raise the
+ * budget in the same commit.
+ */
+@SpringBootTest(properties = {
+		"rate-limit.enabled=false",
+		"concurrency-limit.enabled=false",
+		"file.cleanup.enabled=false",
+		"spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryBudgetTests {
+
+	private static final int PRODUCTS = 30;
+	private static final int SHOPPER_ORDERS = 20;
+	private static final int OTHER_CUSTOMERS = 4;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private QueryCounter queryCounter;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private String adminToken;
+	private String shopperToken;
+	private long shopperId;
+	private final List<Long> productIds = new ArrayList<>();
+	private final List<Long> shopperOrderIds = new ArrayList<>();
+
+	@DynamicPropertySource
+	static void storage(DynamicPropertyRegistry registry) throws Exception {
+		Path root = Files.createTempDirectory("query-budget-uploads");
+		registry.add("file.storage.local.root", root::toString);
+	}
+
+	@BeforeAll
+	void seed() throws Exception {
+		adminToken = login("admin", "admin123").get("token").asText();
+
+		for (int i = 0; i < PRODUCTS; i++) {
+			productIds.add(createProduct("Budget cream " + i, 1 + i % 3));
+		}
+
+		JsonNode shopper = register("shopper");
+		shopperToken = shopper.get("token").asText();
+		shopperId = shopper.get("user").get("id").asLong();
+		for (int i = 0; i < SHOPPER_ORDERS; i++) {
+			shopperOrderIds.add(placeOrder(shopperToken, 3, i));
+		}
+		for (int i = 0; i < OTHER_CUSTOMERS; i++) {
+			String token = register("customer" + i).get("token").asText();
+			placeOrder(token, 2, i);
+			placeOrder(token, 2, i + 1);
+		}
+	}
+
+	@Test
+	void authEndpoints() throws Exception {
+		expectQueries(5, post("/api/auth/register").contentType(MediaType.APPLICATION_JSON)
+				.content(registration("newcomer")));
+		JsonNode session = read(expectQueries(2, post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+				.content(credentials("newcomer", "newcomer123"))));
+		JsonNode refreshed = read(expectQueries(4, post("/api/auth/refresh").contentType(MediaType.APPLICATION_JSON)
+				.content(refreshRequest(session.get("refreshToken").asText()))));
+		expectQueries(0, get("/api/auth/jwks"));
+		expectQueries(3, post("/api/auth/logout").contentType(MediaType.APPLICATION_JSON)
+				.header("Authorization", "Bearer " + refreshed.get("token").asText())
+				.content(refreshRequest(refreshed.get("refreshToken").asText())));
+	}
+
+	@Test
+	void categoryEndpoints() throws Exception {
+		expectQueries(1, get("/api/categories"));
+		expectQueries(2, get("/api/categories/1"));
+		long id = read(expectQueries(1, asAdmin(post("/api/categories")).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Budget category\",\"description\":\"Created by the budget test\"}"))).get("id").asLong();
+		expectQueries(3, asAdmin(put("/api/categories/" + id)).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Budget category\",\"description\":\"Updated\"}"));
+		expectQueries(3, asAdmin(delete("/api/categories/" + id)));
+	}
+
+	@Test
+	void productEndpoints() throws Exception {
+		expectQueries(2, get("/api/products?page=0&size=20"));
+		expectQueries(1, get("/api/products/" + productIds.get(0)));
+		expectQueries(1, get("/api/products/category/1?page=0&size=20"));
+		expectQueries(2, get("/api/products/search?keyword=cream&page=0&size=20"));
+		long id = createProduct("Disposable serum", 2);
+		expectQueries(4, asAdmin(put("/api/products/" + id)).contentType(MediaType.APPLICATION_JSON)
+				.content(product("Disposable serum", 3)));
+		expectQueries(3, asAdmin(delete("/api/products/" + id)));
+		expectQueries(3, asAdmin(post("/api/products")).contentType(MediaType.APPLICATION_JSON)
+				.content(product("Budget toner", 1)));
+	}
+
+	@Test
+	void cartEndpoints() throws Exception {
+		String token = register("cartuser").get("token").asText();
+		expectQueries(3, asUser(token, get("/api/cart")));
+		JsonNode cart = read(expectQueries(6, asUser(token, post("/api/cart/items?productId=" + productIds.get(0) + "&quantity=1"))));
+		addToCart(token, productIds.get(1));
+		long itemId = cart.get("items").get(0).get("id").asLong();
+		expectQueries(6, asUser(token, put("/api/cart/items/" + itemId + "?quantity=2")));
+		expectQueries(6, asUser(token, delete("/api/cart/items/" + itemId)));
+		expectQueries(5, asUser(token, delete("/api/cart/clear")));
+	}
+
+	@Test
+	void orderEndpoints() throws Exception {
+		expectQueries(4, asUser(shopperToken, get("/api/orders?page=0&size=20")));
+		expectQueries(2, asUser(shopperToken, get("/api/orders/" + shopperOrderIds.get(0))));
+		expectQueries(3, asAdmin(get("/api/admin/orders?page=0&size=20")));
+		expectQueries(2, asAdmin(get("/api/admin/orders?status=PENDING")));
+		expectQueries(3, asAdmin(put("/api/admin/orders/" + shopperOrderIds.get(1) + "/status"))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"status\":\"SHIPPED\",\"trackingNumber\":\"TRK-1\"}"));
+
+		String token = register("checkout").get("token").asText();
+		addToCart(token, productIds.get(0));
+		addToCart(token, productIds.get(1));
+		addToCart(token, productIds.get(2));
+		expectQueries(18, asUser(token, post("/api/orders")).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"shippingAddress\":\"1 Budget Lane\"}"));
+	}
+
+	@Test
+	void userEndpoints() throws Exception {
+		expectQueries(2, asAdmin(get("/api/users?page=0&size=10")));
+		expectQueries(1, asAdmin(get("/api/users/" + shopperId)));
+		expectQueries(1, asUser(shopperToken, get("/api/users/me")));
+		expectQueries(2, asUser(shopperToken, put("/api/users/" + shopperId)).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"username\":\"shopper\",\"password\":\"unchanged\",\"fullName\":\"Budget Shopper\"}"));
+		long id = register("leaving").get("user").get("id").asLong();
+		expectQueries(6, asAdmin(delete("/api/users/" + id)));
+	}
+
+	@Test
+	void analyticsEndpoints() throws Exception {
+		expectQueries(4, asAdmin(get("/api/admin/analytics/sales")));
+		expectQueries(4, asAdmin(get("/api/admin/analytics/top-products")));
+		expectQueries(0, asAdmin(get("/api/admin/analytics/query?groupBy=category")));
+		expectQueries(0, asAdmin(get("/api/admin/analytics/stream")));
+		expectQueries(1, asAdmin(get("/api/admin/analytics/cohorts")));
+		expectQueries(0, asAdmin(post("/api/admin/analytics/cohorts/run")));
+		expectQueries(0, asAdmin(get("/api/admin/analytics/cohorts/status")));
+	}
+
+	@Test
+	void customerStatsEndpoints() throws Exception {
+		expectQueries(1, asAdmin(get("/api/admin/customers/stats")));
+		expectQueries(2, asAdmin(get("/api/admin/customers/" + shopperId + "/stats")));
+		expectQueries(0, asAdmin(post("/api/admin/customers/stats/backfill")));
+	}
+
+	@Test
+	void fileAndMetricsEndpoints() throws Exception {
+		expectQueries(0, get("/api/test-simple"));
+		expectQueries(0, get("/api/upload/restrictions"));
+		JsonNode upload = read(expectQueries(3, asAdmin(multipart("/api/admin/upload/product-image")
+				.file(new MockMultipartFile("file", "swatch.png", "image/png", png())))));
+		expectQueries(1, get("/api/files/" + upload.get("fileName").asText()));
+		expectQueries(0, asAdmin(get("/api/admin/uploads/cleanup/status")));
+		expectQueries(0, asAdmin(post("/api/admin/uploads/cleanup?dryRun=true")));
+
+		for (String metrics : List.of("password-hashing", "rate-limits", "concurrency-limits", "hot-assets")) {
+			expectQueries(0, asAdmin(get("/api/admin/metrics/" + metrics)));
+		}
+	}
+
+	private MvcResult expectQueries(int budget, MockHttpServletRequestBuilder request) throws Exception {
+		MvcResult result;
+		long queries;
+		try (QueryCounter.Scope scope = queryCounter.start()) {
+			result = mockMvc.perform(request).andReturn();
+			queries = scope.getCount();
+		}
+		String endpoint = result.getRequest().getMethod() + " " + result.getRequest().getRequestURI();
+		assertThat(result.getResponse().getStatus()).as("status of %s: %s", endpoint,
+				result.getResponse().getContentAsString()).isBetween(200, 299);
+		assertThat(queries).as("SQL statements executed by %s", endpoint).isLessThanOrEqualTo(budget);
+		return result;
+	}
+
+	private MockHttpServletRequestBuilder asAdmin(MockHttpServletRequestBuilder request) {
+		return asUser(adminToken, request);
+	}
+
+	private MockHttpServletRequestBuilder asUser(String token, MockHttpServletRequestBuilder request) {
+		return request.header("Authorization", "Bearer " + token);
+	}
+
+	private JsonNode login(String username, String password) throws Exception {
+		return perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+				.content(credentials(username, password)));
+	}
+
+	private JsonNode register(String username) throws Exception {
+		return perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON)
+				.content(registration(username)));
+	}
+
+	private long createProduct(String name, long categoryId) throws Exception {
+		return perform(asAdmin(post("/api/products")).contentType(MediaType.APPLICATION_JSON)
+				.content(product(name, categoryId))).get("id").asLong();
+	}
+
+	private long placeOrder(String token, int items, int offset) throws Exception {
+		for (int i = 0; i < items; i++) {
+			addToCart(token, productIds.get((offset + i) % productIds.size()));
+		}
+		return perform(asUser(token, post("/api/orders")).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"shippingAddress\":\"1 Budget Lane\"}")).get("id").asLong();
+	}
+
+	private void addToCart(String token, long productId) throws Exception {
+		perform(asUser(token, post("/api/cart/items?productId=" + productId + "&quantity=1")));
+	}
+
+	private JsonNode perform(MockHttpServletRequestBuilder request) throws Exception {
+		MvcResult result = mockMvc.perform(request).andReturn();
+		assertThat(result.getResponse().getStatus()).as(result.getResponse().getContentAsString()).isBetween(200, 299);
+		return read(result);
+	}
+
+	private JsonNode read(MvcResult result) throws Exception {
+		return objectMapper.readTree(result.getResponse().getContentAsString());
+	}
+
+	private String credentials(String username, String password) throws Exception {
+		return objectMapper.writeValueAsString(Map.of("username", username, "password", password));
+	}
+
+	private String registration(String username) throws Exception {
+		return objectMapper.writeValueAsString(Map.of("username", username, "email", username + "@example.com",
+				"password", username + "123", "fullName", "Budget " + username, "phoneNumber", "0123456789",
+				"address", "1 Budget Lane"));
+	}
+
+	private String refreshRequest(String refreshToken) throws Exception {
+		return objectMapper.writeValueAsString(Map.of("refreshToken", refreshToken));
+	}
+
+	private String product(String name, long categoryId) throws Exception {
+		return objectMapper.writeValueAsString(Map.of("name", name, "description", "Seeded for query budgets",
+				"price", 12.5, "stockQuantity", 1000, "categoryId", categoryId, "active", true));
+	}
+
+	private byte[] png() throws Exception {
+		BufferedImage image = new BufferedImage(320, 320, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < 320; y++) {
+			for (int x = 0; x < 320; x++) {
+				image.setRGB(x, y, (x % 256) << 16 | (y % 256) << 8);
+			}
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,136 @@
+package com.cosmetics.ecommerce.security;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtTokenProviderTests {
+
+	@TempDir
+	Path keyDirectory;
+
+	private JwtTokenProvider provider;
+
+	@BeforeEach
+	void setUp() {
+		provider = new JwtTokenProvider(new SigningKeyStore(keyDirectory.toString(), 3_600_000, 60_000, 0), 60_000);
+	}
+
+	@Test
+	void rebuildsPrincipalFromClaims() {
+		String token = provider.generateToken(login(42L));
+
+		VerifiedToken verified = provider.verify(token);
+
+		AuthenticatedUser principal = (AuthenticatedUser) verified.getAuthentication().getPrincipal();
+		assertThat(principal.getId()).isEqualTo(42L);
+		assertThat(principal.getUsername()).isEqualTo("jane");
+		assertThat(principal.hasRole("ROLE_CUSTOMER")).isTrue();
+		assertThat(principal.isEnabled()).isTrue();
+		assertThat(verified.getExpiresAt()).isGreaterThan(System.currentTimeMillis());
+	}
+
+	@Test
+	void rejectsTamperedToken() {
+		String token = provider.generateToken(login(42L));
+		String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+		assertThatThrownBy(() -> provider.verify(tampered)).isInstanceOf(JwtException.class);
+		assertThat(new JwtTokenVerifier(provider, new TokenDenyList(1 << 16), 100, new SimpleMeterRegistry()).verify(tampered)).isNull();
+	}
+
+	@Test
+	void revokedTokensAreRejectedEvenWhenCached() {
+		TokenDenyList denyList = new TokenDenyList(1 << 16);
+		JwtTokenVerifier verifier = new JwtTokenVerifier(provider, denyList, 100, new SimpleMeterRegistry());
+		String revoked = provider.generateToken(login(42L));
+		String other = provider.generateToken(login(42L));
+		assertThat(verifier.verify(revoked)).isNotNull();
+
+		VerifiedToken token = provider.verify(revoked);
+		denyList.apply(new RevocationEvent(token.getTokenId(), null, 0, token.getExpiresAt()));
+
+		assertThat(verifier.verify(revoked)).isNull();
+		assertThat(verifier.verify(other)).isNotNull();
+
+		denyList.apply(new RevocationEvent(null, 42L, System.currentTimeMillis(), token.getExpiresAt()));
+		assertThat(verifier.verify(other)).isNull();
+		assertThat(verifier.verify(provider.generateToken(login(7L)))).isNotNull();
+	}
+
+	@Test
+	void verifiesTokensSignedByRetiredKeyDuringOverlap() throws Exception {
+		// Rotate on every check so the second store instance starts a new key
+		SigningKeyStore keyStore = new SigningKeyStore(keyDirectory.toString(), 0, 60_000, 0);
+		JwtTokenProvider rotating = new JwtTokenProvider(keyStore, 60_000);
+		String oldToken = rotating.generateToken(login(42L));
+		String oldKid = keyStore.getActiveKey().getKid();
+
+		Thread.sleep(5);
+		keyStore.rotate();
+
+		assertThat(keyStore.getActiveKey().getKid()).isNotEqualTo(oldKid);
+		assertThat(rotating.verify(oldToken).getUserId()).isEqualTo(42L);
+		assertThat(keyStore.getJwks().get("keys")).asList().hasSizeGreaterThanOrEqualTo(2);
+
+		// A node that only shares the key directory can verify without any secret
+		JwtTokenProvider otherNode = new JwtTokenProvider(
+				new SigningKeyStore(keyDirectory.toString(), 3_600_000, 60_000, 0), 60_000);
+		assertThat(otherNode.verify(oldToken).getUserId()).isEqualTo(42L);
+	}
+
+	@Test
+	void publishesNextKeyBeforeItSigns() throws Exception {
+		// Apart from the key set up for the other tests
+		String directory = keyDirectory.resolve("lead").toString();
+		SigningKeyStore keyStore = new SigningKeyStore(directory, 0, 60_000, 60_000);
+		String firstKid = keyStore.getActiveKey().getKid();
+
+		Thread.sleep(5);
+		keyStore.rotate();
+
+		// Listed for verifiers, but the first key keeps signing until the lead has passed
+		assertThat(keyStore.getJwks().get("keys")).asList().hasSize(2);
+		assertThat(keyStore.getActiveKey().getKid()).isEqualTo(firstKid);
+
+		SigningKeyStore noLead = new SigningKeyStore(directory, 3_600_000, 60_000, 0);
+		assertThat(noLead.getActiveKey().getKid()).isNotEqualTo(firstKid);
+	}
+
+	@Test
+	void rejectsHmacTokenCarryingKnownKeyId() {
+		String kid = new SigningKeyStore(keyDirectory.toString(), 3_600_000, 60_000, 0).getActiveKey().getKid();
+		String forged = Jwts.builder()
+				.setHeaderParam("kid", kid)
+				.setSubject("jane")
+				.claim("uid", 42L)
+				.claim("auth", "ROLE_ADMIN")
+				.claim("active", true)
+				.setExpiration(new Date(System.currentTimeMillis() + 60_000))
+				.signWith(Keys.hmacShaKeyFor(new byte[32]), SignatureAlgorithm.HS256)
+				.compact();
+
+		assertThatThrownBy(() -> provider.verify(forged)).isInstanceOf(JwtException.class);
+	}
+
+	private Authentication login(Long userId) {
+		List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER"));
+		AuthenticatedUser user = new AuthenticatedUser(userId, "jane", null, authorities, true);
+		return new UsernamePasswordAuthenticationToken(user, null, authorities);
+	}
+}
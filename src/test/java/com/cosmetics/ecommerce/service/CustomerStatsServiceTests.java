@@ -0,0 +1,71 @@
+package com.cosmetics.ecommerce.service;
+
+import com.cosmetics.ecommerce.model.CustomerStats;
+import com.cosmetics.ecommerce.model.User;
+import com.cosmetics.ecommerce.repository.CustomerStatsRepository;
+import com.cosmetics.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CustomerStatsServiceTests {
+
+	@Autowired
+	private CustomerStatsService customerStatsService;
+
+	@Autowired
+	private CustomerStatsRepository customerStatsRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void concurrentFirstOrdersOfOneCustomerAreBothRecorded() throws Exception {
+		User user = new User();
+		user.setUsername("first-orders");
+		user.setEmail("first-orders@example.com");
+		user.setPassword("unused");
+		Long userId = userRepository.save(user).getId();
+
+		int orders = 4;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(orders);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int i = 0; i < orders; i++) {
+				results.add(pool.submit(() -> {
+					start.await();
+					transactionTemplate.executeWithoutResult(status -> customerStatsService.recordOrder(
+							userId, new BigDecimal("10.00"), LocalDateTime.now()));
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> result : results) {
+				result.get();
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		CustomerStats stats = customerStatsRepository.findById(userId).orElseThrow();
+		assertThat(stats.getOrderCount()).isEqualTo(orders);
+		assertThat(stats.getLifetimeValue()).isEqualByComparingTo("40.00");
+	}
+}
@@ -0,0 +1,160 @@
+package com.cosmetics.ecommerce.service;
+
+import com.cosmetics.ecommerce.repository.ImageBlobRepository;
+import com.cosmetics.ecommerce.storage.LocalBlobStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "file.cleanup.enabled=false")
+class FileStorageServiceTests {
+
+	@Autowired
+	private FileStorageService fileStorageService;
+
+	@Autowired
+	private ImageBlobRepository imageBlobRepository;
+
+	@Autowired
+	private PausingBlobStore blobStore;
+
+	@DynamicPropertySource
+	static void storage(DynamicPropertyRegistry registry) throws Exception {
+		Path root = Files.createTempDirectory("file-storage-uploads");
+		registry.add("file.storage.local.root", root::toString);
+	}
+
+	@Test
+	void reUploadDuringASweepDeleteWaitsAndStoresTheContentAgain() throws Exception {
+		FileStorageService.StoredFile stored = fileStorageService.storeFile(upload(1));
+		String key = fileStorageService.getKey(stored.getFileName());
+		CountDownLatch deleting = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		blobStore.pauseDelete(key, deleting, release);
+
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		try {
+			Future<Boolean> sweep = pool.submit(() ->
+					fileStorageService.deleteFile(stored.getFileName(), Instant.now().plusSeconds(60)));
+			assertThat(deleting.await(10, TimeUnit.SECONDS)).isTrue();
+
+			// The record is locked by the sweep, so the upload cannot register against it yet
+			Future<FileStorageService.StoredFile> reUpload = pool.submit(() -> fileStorageService.storeFile(upload(1)));
+			Thread.sleep(300);
+			assertThat(reUpload.isDone()).isFalse();
+			release.countDown();
+
+			assertThat(sweep.get(10, TimeUnit.SECONDS)).isTrue();
+			FileStorageService.StoredFile again = reUpload.get(10, TimeUnit.SECONDS);
+			assertThat(again.getFileName()).isEqualTo(stored.getFileName());
+			assertThat(again.isDuplicate()).isFalse();
+		} finally {
+			release.countDown();
+			pool.shutdownNow();
+			blobStore.pauseDelete(null, null, null);
+		}
+
+		assertThat(imageBlobRepository.existsById(stored.getContentHash())).isTrue();
+		assertThat(fileStorageService.getFile(stored.getFileName())).isPresent();
+	}
+
+	@Test
+	void reUploadBeforeASweepKeepsTheContent() throws Exception {
+		FileStorageService.StoredFile stored = fileStorageService.storeFile(upload(2));
+		Instant cutoff = Instant.now();
+		Thread.sleep(5);
+		FileStorageService.StoredFile again = fileStorageService.storeFile(upload(2));
+		assertThat(again.isDuplicate()).isTrue();
+
+		assertThat(fileStorageService.deleteFile(stored.getFileName(), cutoff)).isFalse();
+		assertThat(imageBlobRepository.existsById(stored.getContentHash())).isTrue();
+		assertThat(fileStorageService.getFile(stored.getFileName())).isPresent();
+	}
+
+	@Test
+	void deletesContentFoundWithoutARecord() throws Exception {
+		FileStorageService.StoredFile stored = fileStorageService.storeFile(upload(3));
+		imageBlobRepository.deleteById(stored.getContentHash());
+
+		assertThat(fileStorageService.deleteFile(stored.getFileName(), Instant.now().plusSeconds(60))).isTrue();
+		assertThat(imageBlobRepository.existsById(stored.getContentHash())).isFalse();
+		assertThat(fileStorageService.getFile(stored.getFileName())).isEmpty();
+	}
+
+	// A distinct image per seed, so each test stores its own content
+	private MockMultipartFile upload(int seed) throws Exception {
+		BufferedImage image = new BufferedImage(320, 320, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < 320; y++) {
+			for (int x = 0; x < 320; x++) {
+				image.setRGB(x, y, (x % 256) << 16 | (y % 256) << 8 | seed);
+			}
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return new MockMultipartFile("file", "image.png", "image/png", out.toByteArray());
+	}
+
+	@TestConfiguration
+	static class PausingBlobStoreConfig {
+
+		@Bean
+		@Primary
+		PausingBlobStore pausingBlobStore(@Value("${file.storage.local.root}") String root) {
+			return new PausingBlobStore(root);
+		}
+	}
+
+	// Holds the delete of one key until released, to stop a sweep midway
+	static class PausingBlobStore extends LocalBlobStore {
+
+		private volatile String pausedKey;
+		private volatile CountDownLatch deleting;
+		private volatile CountDownLatch release;
+
+		PausingBlobStore(String root) {
+			super(root);
+		}
+
+		void pauseDelete(String key, CountDownLatch deleting, CountDownLatch release) {
+			this.deleting = deleting;
+			this.release = release;
+			this.pausedKey = key;
+		}
+
+		@Override
+		public void delete(String key) throws IOException {
+			if (key.equals(pausedKey)) {
+				deleting.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException(e);
+				}
+			}
+			super.delete(key);
+		}
+	}
+}
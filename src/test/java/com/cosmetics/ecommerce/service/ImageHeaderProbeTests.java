@@ -0,0 +1,67 @@
+package com.cosmetics.ecommerce.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImageHeaderProbeTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void readsJpegAndPngDimensionsFromHeaders() throws IOException {
+		Path jpeg = write("photo.jpg", "jpeg", 640, 360);
+		Path png = write("photo.png", "png", 301, 1999);
+
+		ImageHeaderProbe.ImageInfo jpegInfo = ImageHeaderProbe.probe(jpeg);
+		assertThat(jpegInfo.getFormat()).isEqualTo(ImageHeaderProbe.Format.JPEG);
+		assertThat(jpegInfo.getWidth()).isEqualTo(640);
+		assertThat(jpegInfo.getHeight()).isEqualTo(360);
+
+		ImageHeaderProbe.ImageInfo pngInfo = ImageHeaderProbe.probe(png);
+		assertThat(pngInfo.getFormat()).isEqualTo(ImageHeaderProbe.Format.PNG);
+		assertThat(pngInfo.getWidth()).isEqualTo(301);
+		assertThat(pngInfo.getHeight()).isEqualTo(1999);
+	}
+
+	@Test
+	void readsLosslessWebpDimensions() throws IOException {
+		// VP8L header for an 800x600 image: 14-bit width - 1 and height - 1, little endian
+		int bits = (800 - 1) | ((600 - 1) << 14);
+		byte[] header = {
+				'R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'E', 'B', 'P',
+				'V', 'P', '8', 'L', 0, 0, 0, 0, 0x2F,
+				(byte) bits, (byte) (bits >>> 8), (byte) (bits >>> 16), (byte) (bits >>> 24)
+		};
+		Path webp = Files.write(dir.resolve("photo.webp"), header);
+
+		ImageHeaderProbe.ImageInfo info = ImageHeaderProbe.probe(webp);
+		assertThat(info.getFormat()).isEqualTo(ImageHeaderProbe.Format.WEBP);
+		assertThat(info.getWidth()).isEqualTo(800);
+		assertThat(info.getHeight()).isEqualTo(600);
+	}
+
+	@Test
+	void rejectsNonImagesAndTruncatedHeaders() throws IOException {
+		Path text = Files.writeString(dir.resolve("notes.jpg"), "definitely not an image");
+		Path truncated = Files.write(dir.resolve("cut.png"), new byte[] {(byte) 0x89, 'P', 'N', 'G', 13, 10, 26, 10, 0, 0});
+
+		assertThatThrownBy(() -> ImageHeaderProbe.probe(text)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> ImageHeaderProbe.probe(truncated)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private Path write(String name, String format, int width, int height) throws IOException {
+		Path file = dir.resolve(name);
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, file.toFile());
+		return file;
+	}
+}
@@ -0,0 +1,56 @@
+package com.cosmetics.ecommerce.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotAssetCacheTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void admitsAfterRepeatedRequestsAndEvictsLeastRecentlyUsed() throws Exception {
+		// 1MB budget, entries up to 512KB, admitted on the second request
+		HotAssetCache cache = new HotAssetCache(1, 512, 2);
+		Path a = write("a.png", 400 * 1024);
+		Path b = write("b.png", 400 * 1024);
+		Path c = write("c.png", 400 * 1024);
+
+		assertThat(cache.admit("a.png", a, Files.size(a), 1L, "\"a\"", "image/png")).isNull();
+		HotAssetCache.Asset cached = cache.admit("a.png", a, Files.size(a), 1L, "\"a\"", "image/png");
+		assertThat(cached).isNotNull();
+		ByteBuffer content = cached.getContent();
+		assertThat(content.isDirect()).isTrue();
+		assertThat(content.remaining()).isEqualTo(400 * 1024);
+		assertThat(content.get(0)).isEqualTo(Files.readAllBytes(a)[0]);
+
+		cache.admit("b.png", b, Files.size(b), 1L, "\"b\"", "image/png");
+		cache.admit("b.png", b, Files.size(b), 1L, "\"b\"", "image/png");
+		// Touch a so that b is the least recently used when c pushes the cache over budget
+		assertThat(cache.get("a.png")).isSameAs(cached);
+		cache.admit("c.png", c, Files.size(c), 1L, "\"c\"", "image/png");
+		cache.admit("c.png", c, Files.size(c), 1L, "\"c\"", "image/png");
+
+		assertThat(cache.get("b.png")).isNull();
+		assertThat(cache.get("a.png")).isNotNull();
+		assertThat(cache.getStats().getBytesResident()).isEqualTo(800 * 1024);
+		assertThat(cache.getStats().getEvictions()).isEqualTo(1);
+
+		cache.invalidate("a.png");
+		assertThat(cache.get("a.png")).isNull();
+	}
+
+	private Path write(String name, int size) throws Exception {
+		byte[] bytes = new byte[size];
+		for (int i = 0; i < size; i++) {
+			bytes[i] = (byte) (name.charAt(0) + i);
+		}
+		return Files.write(dir.resolve(name), bytes);
+	}
+}
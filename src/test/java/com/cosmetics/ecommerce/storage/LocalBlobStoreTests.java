@@ -0,0 +1,57 @@
+package com.cosmetics.ecommerce.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalBlobStoreTests {
+
+	@TempDir
+	Path root;
+
+	@Test
+	void publishesListsAndDeletesStagedFiles() throws Exception {
+		LocalBlobStore store = new LocalBlobStore(root.toString());
+		Path staged = store.createStagingFile();
+		Files.writeString(staged, "content");
+		// Neither staged uploads nor dot files being moved into place are listed
+		Files.writeString(store.createStagingFile(), "pending");
+		Files.createDirectories(root.resolve("products/blobs/aa/bb"));
+		Files.writeString(root.resolve("products/blobs/aa/bb/.blob-1.tmp"), "partial");
+
+		store.put("products/blobs/aa/cc/one.png", staged, "image/png");
+
+		assertThat(staged).doesNotExist();
+		assertThat(store.exists("products/blobs/aa/cc/one.png")).isTrue();
+		assertThat(store.getLocalFile("products/blobs/aa/cc/one.png").orElseThrow()).hasContent("content");
+		try (Stream<BlobStore.BlobInfo> blobs = store.list("products/")) {
+			assertThat(blobs).singleElement().satisfies(blob -> {
+				assertThat(blob.getKey()).isEqualTo("products/blobs/aa/cc/one.png");
+				assertThat(blob.getSize()).isEqualTo(7);
+			});
+		}
+
+		store.delete("products/blobs/aa/cc/one.png");
+
+		assertThat(store.exists("products/blobs/aa/cc/one.png")).isFalse();
+		assertThat(store.getLocalFile("products/blobs/aa/cc/one.png")).isEmpty();
+		// The emptied shard is pruned, the one still holding a file is not
+		assertThat(root.resolve("products/blobs/aa/cc")).doesNotExist();
+		assertThat(root.resolve("products/blobs/aa/bb")).exists();
+	}
+
+	@Test
+	void rejectsKeysOutsideTheRoot() {
+		LocalBlobStore store = new LocalBlobStore(root.toString());
+
+		assertThatThrownBy(() -> store.exists("../outside.png")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> store.getLocalFile("products/../../outside.png"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
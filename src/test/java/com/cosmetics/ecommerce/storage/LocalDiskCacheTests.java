@@ -0,0 +1,42 @@
+package com.cosmetics.ecommerce.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalDiskCacheTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void keepsEvictedFilesForResponsesStillUsingThem() throws Exception {
+		LocalDiskCache cache = new LocalDiskCache(dir, 1500);
+		Path a = cache.adopt("products/a.png", file(cache, 1000));
+		Path b = cache.adopt("products/b.png", file(cache, 1000));
+
+		assertThat(cache.get("products/a.png")).isNull();
+		assertThat(cache.get("products/b.png")).isEqualTo(b);
+		// Evicted, but a response that looked it up may not have opened it yet
+		assertThat(a).exists();
+
+		Path replacement = cache.adopt("products/b.png", file(cache, 100));
+		assertThat(replacement).isNotEqualTo(b);
+		assertThat(cache.get("products/b.png")).isEqualTo(replacement);
+		assertThat(b).exists();
+
+		cache.evict("products/b.png");
+		assertThat(cache.get("products/b.png")).isNull();
+		assertThat(replacement).exists();
+	}
+
+	private Path file(LocalDiskCache cache, int size) throws Exception {
+		Path file = cache.createTempFile();
+		Files.write(file, new byte[size]);
+		return file;
+	}
+}
@@ -0,0 +1,293 @@
+package com.cosmetics.ecommerce.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class S3BlobStoreTests {
+
+	private static final String BUCKET = "images";
+
+	@TempDir
+	Path dir;
+
+	private S3Stub stub;
+
+	@BeforeEach
+	void startStub() throws IOException {
+		stub = new S3Stub();
+	}
+
+	@AfterEach
+	void stopStub() {
+		stub.stop();
+	}
+
+	@Test
+	void storesReadsListsAndDeletesObjects() throws Exception {
+		S3BlobStore store = store("node-a", false);
+		store.put("products/blobs/aa/bb/small.png", stage(store, 1000), "image/png");
+
+		assertThat(store.exists("products/blobs/aa/bb/small.png")).isTrue();
+		assertThat(store.exists("products/blobs/aa/bb/missing.png")).isFalse();
+		try (Stream<BlobStore.BlobInfo> blobs = store.list("products/")) {
+			assertThat(blobs.map(BlobStore.BlobInfo::getKey)).containsExactly("products/blobs/aa/bb/small.png");
+		}
+
+		// Another node has nothing cached and downloads the object
+		S3BlobStore other = store("node-b", false);
+		Optional<Path> file = other.getLocalFile("products/blobs/aa/bb/small.png");
+		assertThat(file).isPresent();
+		assertThat(Files.readAllBytes(file.get())).isEqualTo(stub.objects.get("/images/products/blobs/aa/bb/small.png"));
+		assertThat(other.getLocalFile("products/blobs/aa/bb/missing.png")).isEmpty();
+
+		store.delete("products/blobs/aa/bb/small.png");
+		assertThat(stub.objects).isEmpty();
+		assertThat(store.exists("products/blobs/aa/bb/small.png")).isFalse();
+		store.destroy();
+		other.destroy();
+	}
+
+	@Test
+	void uploadsLargeFilesInParts() throws Exception {
+		S3BlobStore store = store("node-a", false);
+		Path staged = stage(store, 6 * 1024 * 1024 + 100);
+		byte[] content = Files.readAllBytes(staged);
+
+		store.put("products/blobs/cc/dd/large.png", staged, "image/png");
+
+		assertThat(stub.partsUploaded.get()).isEqualTo(2);
+		assertThat(stub.objects.get("/images/products/blobs/cc/dd/large.png")).isEqualTo(content);
+		S3BlobStore other = store("node-b", false);
+		assertThat(Files.readAllBytes(other.getLocalFile("products/blobs/cc/dd/large.png").orElseThrow()))
+				.isEqualTo(content);
+		store.destroy();
+		other.destroy();
+	}
+
+	@Test
+	void remembersExistingKeysInsteadOfCheckingTheBucketEachTime() throws Exception {
+		S3BlobStore writer = store("node-a", false);
+		writer.put("products/blobs/ee/ff/seen.png", stage(writer, 1000), "image/png");
+		S3BlobStore redirecting = store("node-b", true);
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(redirecting.exists("products/blobs/ee/ff/seen.png")).isTrue();
+			Optional<URI> url = redirecting.getDirectUrl("products/blobs/ee/ff/seen.png");
+			assertThat(url).isPresent();
+			assertThat(url.get().getQuery()).contains("X-Amz-Signature=");
+		}
+		assertThat(stub.heads.get()).isEqualTo(1);
+
+		redirecting.delete("products/blobs/ee/ff/seen.png");
+		assertThat(redirecting.exists("products/blobs/ee/ff/seen.png")).isFalse();
+		writer.destroy();
+		redirecting.destroy();
+	}
+
+	private S3BlobStore store(String node, boolean redirectReads) throws IOException {
+		return new S3BlobStore(BUCKET, "us-east-1", stub.endpoint(), true, "test", "test", 5,
+				redirectReads, 300, dir.resolve(node).toString(), 64);
+	}
+
+	private Path stage(S3BlobStore store, int size) throws IOException {
+		byte[] content = new byte[size];
+		new Random(size).nextBytes(content);
+		Path staged = store.createStagingFile();
+		Files.write(staged, content);
+		return staged;
+	}
+
+	/**
+	 * Just enough of the S3 REST API, path-style, for the calls S3BlobStore makes.
+	 */
+	private static final class S3Stub {
+
+		final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+		final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+		final AtomicInteger partsUploaded = new AtomicInteger();
+		final AtomicInteger heads = new AtomicInteger();
+		private final AtomicInteger uploadIds = new AtomicInteger();
+		private final HttpServer server;
+
+		S3Stub() throws IOException {
+			server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+			server.createContext("/", this::handle);
+			server.start();
+		}
+
+		String endpoint() {
+			return "http://127.0.0.1:" + server.getAddress().getPort();
+		}
+
+		void stop() {
+			server.stop(0);
+		}
+
+		private void handle(HttpExchange exchange) throws IOException {
+			String path = exchange.getRequestURI().getPath();
+			Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+			byte[] body = body(exchange);
+			switch (exchange.getRequestMethod()) {
+				case "PUT" -> {
+					if (query.containsKey("partNumber")) {
+						uploads.get(query.get("uploadId")).put(Integer.parseInt(query.get("partNumber")), body);
+						partsUploaded.incrementAndGet();
+					} else {
+						objects.put(path, body);
+					}
+					exchange.getResponseHeaders().add("ETag", etag(body));
+					respond(exchange, 200, new byte[0]);
+				}
+				case "POST" -> {
+					if (query.containsKey("uploads")) {
+						String uploadId = "upload-" + uploadIds.incrementAndGet();
+						uploads.put(uploadId, new TreeMap<>());
+						respond(exchange, 200, xml("<InitiateMultipartUploadResult><UploadId>" + uploadId
+								+ "</UploadId></InitiateMultipartUploadResult>"));
+					} else {
+						ByteArrayOutputStream content = new ByteArrayOutputStream();
+						for (byte[] part : uploads.remove(query.get("uploadId")).values()) {
+							content.write(part);
+						}
+						objects.put(path, content.toByteArray());
+						respond(exchange, 200, xml("<CompleteMultipartUploadResult><ETag>\"complete\"</ETag>"
+								+ "</CompleteMultipartUploadResult>"));
+					}
+				}
+				case "HEAD" -> {
+					heads.incrementAndGet();
+					byte[] object = objects.get(path);
+					if (object != null) {
+						exchange.getResponseHeaders().add("ETag", etag(object));
+					}
+					exchange.sendResponseHeaders(object != null ? 200 : 404, -1);
+					exchange.close();
+				}
+				case "GET" -> {
+					if (query.containsKey("list-type")) {
+						respond(exchange, 200, list(path, query.getOrDefault("prefix", "")));
+					} else if (objects.containsKey(path)) {
+						exchange.getResponseHeaders().add("ETag", etag(objects.get(path)));
+						respond(exchange, 200, objects.get(path));
+					} else {
+						respond(exchange, 404, xml("<Error><Code>NoSuchKey</Code></Error>"));
+					}
+				}
+				case "DELETE" -> {
+					objects.remove(path);
+					exchange.sendResponseHeaders(204, -1);
+					exchange.close();
+				}
+				default -> respond(exchange, 405, new byte[0]);
+			}
+		}
+
+		private byte[] list(String bucketPath, String prefix) {
+			StringBuilder contents = new StringBuilder();
+			List<String> keys = objects.keySet().stream()
+					.map(path -> path.substring(bucketPath.length() + 1))
+					.filter(key -> key.startsWith(prefix))
+					.sorted()
+					.toList();
+			for (String key : keys) {
+				contents.append("<Contents><Key>").append(key).append("</Key><LastModified>").append(Instant.now())
+						.append("</LastModified><Size>").append(objects.get(bucketPath + "/" + key).length)
+						.append("</Size></Contents>");
+			}
+			return xml("<ListBucketResult><Name>" + BUCKET + "</Name><Prefix>" + prefix + "</Prefix><KeyCount>"
+					+ keys.size() + "</KeyCount><IsTruncated>false</IsTruncated>" + contents + "</ListBucketResult>");
+		}
+
+		// Strips the aws-chunked framing the SDK uses for signed streaming uploads
+		private static byte[] body(HttpExchange exchange) throws IOException {
+			byte[] raw;
+			try (InputStream in = exchange.getRequestBody()) {
+				raw = in.readAllBytes();
+			}
+			String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+			if (encoding == null || !encoding.contains("aws-chunked")) {
+				return raw;
+			}
+			ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+			int position = 0;
+			while (true) {
+				int lineEnd = indexOfCrlf(raw, position);
+				String header = new String(raw, position, lineEnd - position, StandardCharsets.US_ASCII);
+				int size = Integer.parseInt(header.split(";")[0], 16);
+				if (size == 0) {
+					return decoded.toByteArray();
+				}
+				decoded.write(raw, lineEnd + 2, size);
+				position = lineEnd + 2 + size + 2;
+			}
+		}
+
+		private static int indexOfCrlf(byte[] bytes, int from) {
+			for (int i = from; i < bytes.length - 1; i++) {
+				if (bytes[i] == '\r' && bytes[i + 1] == '\n') {
+					return i;
+				}
+			}
+			throw new IllegalArgumentException("Malformed aws-chunked body");
+		}
+
+		private static Map<String, String> query(String rawQuery) {
+			Map<String, String> query = new TreeMap<>();
+			if (rawQuery != null) {
+				for (String parameter : rawQuery.split("&")) {
+					int equals = parameter.indexOf('=');
+					query.put(equals < 0 ? parameter : parameter.substring(0, equals),
+							equals < 0 ? "" : URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+				}
+			}
+			return query;
+		}
+
+		private static String etag(byte[] content) {
+			try {
+				return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content)) + "\"";
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		private static byte[] xml(String body) {
+			return ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + body).getBytes(StandardCharsets.UTF_8);
+		}
+
+		private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+			exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+			if (body.length > 0) {
+				exchange.getResponseBody().write(body);
+			}
+			exchange.close();
+		}
+	}
+}